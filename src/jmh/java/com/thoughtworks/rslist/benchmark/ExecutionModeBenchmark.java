@@ -0,0 +1,78 @@
+package com.thoughtworks.rslist.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load comparison of {@code rs.execution.mode}: the application is served over HTTP with a
+ * Tomcat pool well above the ten connections, and the JMH threads act as concurrent clients. Run
+ * it with many client threads, for example {@code -PjmhThreads=200
+ * -PjmhInclude=ExecutionModeBenchmark}.
+ */
+@State(Scope.Benchmark)
+public class ExecutionModeBenchmark {
+  @Param({"platform", "bounded"})
+  String mode;
+
+  @Param({"100000"})
+  int events;
+
+  RsListFixture fixture;
+  HttpClient httpClient;
+  String baseUrl;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    fixture =
+        RsListFixture.startServer(
+            events,
+            "rs.execution.mode=" + mode,
+            "rs.list.source=database",
+            "server.tomcat.max-threads=100",
+            "server.tomcat.accept-count=1000");
+    httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    baseUrl = "http://localhost:" + fixture.port();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    fixture.close();
+  }
+
+  @Benchmark
+  public int rsEventPage() throws Exception {
+    int start = ThreadLocalRandom.current().nextInt(events - 9) + 1;
+    String query = "?start=" + start + "&end=" + (start + 9);
+    return send(HttpRequest.newBuilder(URI.create(baseUrl + "/rs/list" + query)).GET());
+  }
+
+  @Benchmark
+  public int vote() throws Exception {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String body =
+        String.format(
+            "{\"userId\":%d,\"time\":\"%s\",\"voteNum\":1}",
+            random.nextInt(RsListFixture.USERS) + 1, LocalDateTime.now());
+    return send(
+        HttpRequest.newBuilder(URI.create(baseUrl + "/rs/vote/" + (random.nextInt(events) + 1)))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body)));
+  }
+
+  private int send(HttpRequest.Builder request) throws Exception {
+    return httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+  }
+}
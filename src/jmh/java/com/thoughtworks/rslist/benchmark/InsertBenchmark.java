@@ -0,0 +1,126 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.TradeDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.service.UserImporter;
+import com.thoughtworks.rslist.service.VoteWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Inserts per second of the bulk vote, trade and registration writes, and of the NDJSON user
+ * import including parsing and validation. {@code batchSize=1} turns JDBC batching off; running
+ * the same benchmark on a tree from before the pooled id generator gives the figures for per-row
+ * id allocation.
+ */
+@State(Scope.Benchmark)
+public class InsertBenchmark {
+  private static final int ROWS = 1000;
+  private static final int EVENTS = 1000;
+
+  @Param({"1", "50"})
+  int batchSize;
+
+  RsListFixture fixture;
+  VoteWriter voteWriter;
+  TradeRepository tradeRepository;
+  UserRepository userRepository;
+  UserImporter userImporter;
+  byte[] userLines;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    fixture =
+        RsListFixture.start(
+            EVENTS, "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+    voteWriter = fixture.bean(VoteWriter.class);
+    tradeRepository = fixture.bean(TradeRepository.class);
+    userRepository = fixture.bean(UserRepository.class);
+    userImporter = fixture.bean(UserImporter.class);
+    StringBuilder lines = new StringBuilder();
+    for (int i = 0; i < ROWS; i++) {
+      lines.append("{\"userName\":\"user\",\"gender\":\"male\",\"age\":20,")
+          .append("\"email\":\"a@b.com\",\"phone\":\"18888888888\"}\n");
+    }
+    userLines = lines.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    fixture.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void vote() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    List<Vote> votes = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      votes.add(
+          Vote.builder()
+              .userId(random.nextInt(RsListFixture.USERS) + 1)
+              .rsEventId(random.nextInt(EVENTS) + 1)
+              .voteNum(1)
+              .time(LocalDateTime.now())
+              .build());
+    }
+    voteWriter.write(votes);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public Object trade() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    List<TradeDto> trades = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      trades.add(
+          TradeDto.builder()
+              .rsEvent(RsEventDto.builder().id(random.nextInt(EVENTS) + 1).build())
+              .rank(random.nextInt(100) + 1)
+              .amount(random.nextInt(1000))
+              .build());
+    }
+    return tradeRepository.saveAll(trades);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public Object register() {
+    List<UserDto> users = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      users.add(
+          UserDto.builder()
+              .userName("user")
+              .gender("male")
+              .age(20)
+              .email("a@b.com")
+              .phone("18888888888")
+              .build());
+    }
+    return userRepository.saveAll(users);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public Object importUsers() throws IOException {
+    return userImporter.importLines(new ByteArrayInputStream(userLines));
+  }
+}
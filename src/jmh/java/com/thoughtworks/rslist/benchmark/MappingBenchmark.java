@@ -0,0 +1,87 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.api.RsController;
+import com.thoughtworks.rslist.api.VoteController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cost of turning stored rows into response objects: the {@code RsEventDto} to {@code RsEvent}
+ * mapping behind {@code /rs/list} for both list sources, and the vote record mapping behind
+ * {@code /voteRecord} with offset pages and with cursors.
+ */
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+  @Param({"1000", "100000", "1000000"})
+  int events;
+
+  @Param({"ranking", "database"})
+  String source;
+
+  RsListFixture fixture;
+  RsController rsController;
+  VoteController voteController;
+  final List<String> voteRecordCursors = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    fixture = RsListFixture.start(events, "rs.list.source=" + source);
+    rsController = fixture.bean(RsController.class);
+    voteController = fixture.bean(VoteController.class);
+    String cursor = null;
+    do {
+      voteRecordCursors.add(cursor);
+      cursor =
+          voteController
+              .getVoteRecord(1, 1, null, cursor, null)
+              .getHeaders()
+              .getFirst("Next-Cursor");
+    } while (cursor != null);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    fixture.close();
+  }
+
+  @Benchmark
+  public Object rsEventList() {
+    return rsController.getRsEventListBetween(null, null, null, null, request());
+  }
+
+  @Benchmark
+  public Object rsEventPage() {
+    int start = ThreadLocalRandom.current().nextInt(events - 9) + 1;
+    return rsController.getRsEventListBetween(start, start + 9, null, null, request());
+  }
+
+  @Benchmark
+  public Object voteRecord() {
+    int pages = RsListFixture.VOTES_PER_RECORD / 5;
+    int pageIndex = ThreadLocalRandom.current().nextInt(pages) + 1;
+    return voteController.getVoteRecord(1, 1, pageIndex, null, null);
+  }
+
+  @Benchmark
+  public Object voteRecordCursor() {
+    String cursor =
+        voteRecordCursors.get(ThreadLocalRandom.current().nextInt(voteRecordCursors.size()));
+    return voteController.getVoteRecord(1, 1, null, cursor, null);
+  }
+
+  private static WebRequest request() {
+    return new ServletWebRequest(new MockHttpServletRequest("GET", "/rs/list"));
+  }
+}
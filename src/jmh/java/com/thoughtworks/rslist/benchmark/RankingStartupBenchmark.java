@@ -0,0 +1,62 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.service.RsEventRankingLoader;
+import com.thoughtworks.rslist.service.RsEventRankingSnapshots;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to load the ranking on startup, from a full read of the tables ({@code database}) versus
+ * from the latest snapshot plus the changes made after it ({@code snapshot}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RankingStartupBenchmark {
+  @Param({"100000", "1000000"})
+  int events;
+
+  @Param({"database", "snapshot"})
+  String source;
+
+  RsListFixture fixture;
+  RsEventRankingLoader loader;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    Path directory = Files.createTempDirectory("ranking-snapshot");
+    fixture =
+        RsListFixture.start(
+            events,
+            "rs.ranking.snapshot.enabled=" + "snapshot".equals(source),
+            "rs.ranking.snapshot.directory=" + directory);
+    fixture.bean(RsEventRankingSnapshots.class).write();
+    loader = fixture.bean(RsEventRankingLoader.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    fixture.close();
+  }
+
+  @Benchmark
+  public String load() {
+    loader.run(null);
+    if (!source.equals(loader.getSource())) {
+      throw new IllegalStateException("ranking was loaded from " + loader.getSource());
+    }
+    return loader.getSource();
+  }
+}
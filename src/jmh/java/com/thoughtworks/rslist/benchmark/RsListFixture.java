@@ -0,0 +1,118 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.RsListApplication;
+import com.thoughtworks.rslist.service.RsEventRankingLoader;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application against an in-memory H2 database and fills it with the given number of
+ * events, so benchmarks run the real services, repositories and mappings without MySQL.
+ */
+class RsListFixture implements AutoCloseable {
+  static final int USERS = 100;
+  static final int VOTES_PER_RECORD = 1000;
+  private static final int BATCH_SIZE = 10000;
+
+  final ConfigurableApplicationContext context;
+  final int events;
+
+  private RsListFixture(ConfigurableApplicationContext context, int events) {
+    this.context = context;
+    this.events = events;
+  }
+
+  static RsListFixture start(int events, String... properties) throws Exception {
+    return start(WebApplicationType.NONE, events, properties);
+  }
+
+  /** Same as {@link #start(int, String...)}, but also serves HTTP on a random port. */
+  static RsListFixture startServer(int events, String... properties) throws Exception {
+    return start(WebApplicationType.SERVLET, events, properties);
+  }
+
+  private static RsListFixture start(
+      WebApplicationType webApplicationType, int events, String... properties) throws Exception {
+    // Passed as command-line arguments so that they take precedence over application.yml.
+    List<String> arguments = new ArrayList<>();
+    arguments.add("spring.datasource.url=jdbc:h2:mem:rsSystem;MODE=MySQL;DB_CLOSE_DELAY=-1");
+    arguments.add("spring.datasource.driver-class-name=org.h2.Driver");
+    arguments.add("spring.datasource.username=sa");
+    arguments.add("spring.datasource.password=");
+    arguments.add("spring.jpa.hibernate.ddl-auto=create-drop");
+    arguments.add("spring.main.banner-mode=off");
+    arguments.add("logging.level.root=warn");
+    arguments.add("server.port=0");
+    for (String property : properties) {
+      arguments.add(property);
+    }
+    ConfigurableApplicationContext context =
+        new SpringApplicationBuilder(RsListApplication.class)
+            .web(webApplicationType)
+            .run(arguments.stream().map(property -> "--" + property).toArray(String[]::new));
+    RsListFixture fixture = new RsListFixture(context, events);
+    fixture.seed();
+    context.getBean(RsEventRankingLoader.class).run(null);
+    return fixture;
+  }
+
+  <T> T bean(Class<T> type) {
+    return context.getBean(type);
+  }
+
+  int port() {
+    return context.getEnvironment().getProperty("local.server.port", Integer.class);
+  }
+
+  @Override
+  public void close() {
+    context.close();
+  }
+
+  private void seed() {
+    JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+    List<Object[]> users = new ArrayList<>();
+    for (int id = 1; id <= USERS; id++) {
+      users.add(
+          new Object[] {id, "user" + id, "male", 20, "u" + id + "@a.com", "1" + id, 1000000000});
+    }
+    jdbcTemplate.batchUpdate(
+        "insert into user (id, name, gender, age, email, phone, vote_num) "
+            + "values (?, ?, ?, ?, ?, ?, ?)",
+        users);
+    List<Object[]> rsEvents = new ArrayList<>();
+    for (int id = 1; id <= events; id++) {
+      rsEvents.add(new Object[] {id, "event" + id, "keyword", id % 1000, 0, id % USERS + 1});
+      if (rsEvents.size() == BATCH_SIZE) {
+        insertRsEvents(jdbcTemplate, rsEvents);
+      }
+    }
+    insertRsEvents(jdbcTemplate, rsEvents);
+    List<Object[]> votes = new ArrayList<>();
+    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+    for (int id = 1; id <= VOTES_PER_RECORD; id++) {
+      votes.add(new Object[] {id, now, 1, 1, 1});
+    }
+    jdbcTemplate.batchUpdate(
+        "insert into vote (id, local_date_time, num, user_id, rs_event_id) "
+            + "values (?, ?, ?, ?, ?)",
+        votes);
+    int nextId = Math.max(events, VOTES_PER_RECORD) + 1;
+    jdbcTemplate.execute("alter sequence hibernate_sequence restart with " + nextId);
+  }
+
+  private static void insertRsEvents(JdbcTemplate jdbcTemplate, List<Object[]> rsEvents) {
+    jdbcTemplate.batchUpdate(
+        "insert into rs_event (id, event_name, keyword, vote_num, rank, user_id) "
+            + "values (?, ?, ?, ?, ?, ?)",
+        rsEvents);
+    rsEvents.clear();
+  }
+}
@@ -0,0 +1,65 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.service.RsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Throughput of the vote and buy paths of {@link RsService} against H2. */
+@State(Scope.Benchmark)
+public class RsServiceBenchmark {
+  @Param({"1000", "100000", "1000000"})
+  int events;
+
+  RsListFixture fixture;
+  RsService rsService;
+  final AtomicInteger amount = new AtomicInteger();
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    fixture = RsListFixture.start(events);
+    rsService = fixture.bean(RsService.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    fixture.close();
+  }
+
+  @Benchmark
+  public void vote() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int rsEventId = random.nextInt(events) + 1;
+    rsService.vote(
+        Vote.builder()
+            .userId(random.nextInt(RsListFixture.USERS) + 1)
+            .rsEventId(rsEventId)
+            .voteNum(1)
+            .time(LocalDateTime.now())
+            .build(),
+        rsEventId);
+  }
+
+  @Benchmark
+  public Object buy() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int rsEventId = random.nextInt(events) + 1;
+    return rsService.buy(
+        Trade.builder()
+            .rsEventId(rsEventId)
+            .rank(random.nextInt(Math.min(events, 100)) + 1)
+            .amount(amount.incrementAndGet())
+            .build(),
+        rsEventId);
+  }
+}
@@ -0,0 +1,50 @@
+package com.thoughtworks.rslist.api;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.exception.Error;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.service.ReactiveRsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive twins of {@code /rs/list} and {@code /rs/vote/{id}}. Spring MVC treats the returned
+ * publishers as async results, so the servlet thread is released while the database works.
+ */
+@RestController
+@RequestMapping("/reactive")
+@ConditionalOnProperty(name = "rs.reactive.enabled", havingValue = "true")
+public class ReactiveRsController {
+  @Autowired ReactiveRsService reactiveRsService;
+
+  @GetMapping("/rs/list")
+  public Flux<RsEvent> getRsEventListBetween(
+      @RequestParam(required = false) Integer start,
+      @RequestParam(required = false) Integer end) {
+    return reactiveRsService.list(start, end);
+  }
+
+  @PostMapping("/rs/vote/{id}")
+  public Mono<ResponseEntity> vote(@PathVariable int id, @RequestBody Vote vote) {
+    return reactiveRsService.vote(vote, id).thenReturn(ResponseEntity.ok().build());
+  }
+
+  @ExceptionHandler(RequestNotValidException.class)
+  public ResponseEntity<Error> handleRequestErrorHandler(RequestNotValidException e) {
+    Error error = new Error();
+    error.setError(e.getMessage());
+    return ResponseEntity.badRequest().body(error);
+  }
+}
@@ -1,16 +1,21 @@
 package com.thoughtworks.rslist.api;
 
 import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.RsEventPage;
 import com.thoughtworks.rslist.domain.Trade;
 import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.domain.VoteResult;
 import com.thoughtworks.rslist.dto.RsEventDto;
 import com.thoughtworks.rslist.dto.UserDto;
 import com.thoughtworks.rslist.exception.Error;
 import com.thoughtworks.rslist.exception.RequestNotValidException;
 import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.service.RsEventExporter;
+import com.thoughtworks.rslist.service.RsEventPager;
 import com.thoughtworks.rslist.service.RsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -20,56 +25,77 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @RestController
 @Validated
 public class RsController {
+  static final String NEXT_CURSOR_HEADER = "Next-Cursor";
+  static final int DEFAULT_PAGE_SIZE = 10;
+
   @Autowired RsEventRepository rsEventRepository;
   @Autowired UserRepository userRepository;
   @Autowired RsService rsService;
+  @Autowired RsEventPager rsEventPager;
+  @Autowired RsEventExporter rsEventExporter;
 
   @GetMapping("/rs/list")
   public ResponseEntity<List<RsEvent>> getRsEventListBetween(
-      @RequestParam(required = false) Integer start, @RequestParam(required = false) Integer end) {
-    List<RsEvent> rsEvents =
-        rsEventRepository.findAll().stream()
-            .map(
-                item ->
-                    RsEvent.builder()
-                        .eventName(item.getEventName())
-                        .keyword(item.getKeyword())
-                        .userId(item.getId())
-                        .voteNum(item.getVoteNum())
-                        .build())
-            .collect(Collectors.toList());
+      @RequestParam(required = false) Integer start,
+      @RequestParam(required = false) Integer end,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer size,
+      WebRequest webRequest) {
+    if (webRequest.checkNotModified(etag())) {
+      return null;
+    }
+    if (cursor != null || size != null) {
+      RsEventPage page = rsEventPager.getPage(cursor, size == null ? DEFAULT_PAGE_SIZE : size);
+      ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+      if (page.getNextCursor() != null) {
+        response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+      }
+      return response.body(page.getRsEvents());
+    }
     if (start == null || end == null) {
-      return ResponseEntity.ok(rsEvents);
+      return ResponseEntity.ok(rsEventPager.getAll());
     }
-    return ResponseEntity.ok(rsEvents.subList(start - 1, end));
+    return ResponseEntity.ok(rsEventPager.getBetween(start, end));
+  }
+
+  @GetMapping("/rs/list/export")
+  public ResponseEntity<StreamingResponseBody> exportRsEventList(WebRequest webRequest) {
+    if (webRequest.checkNotModified(etag())) {
+      return null;
+    }
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(rsEventExporter::export);
+  }
+
+  @GetMapping("/rs/top")
+  public ResponseEntity<List<RsEvent>> getTopRsEvents(
+      @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int k, WebRequest webRequest) {
+    if (webRequest.checkNotModified(etag())) {
+      return null;
+    }
+    return ResponseEntity.ok(rsEventPager.getTop(k));
   }
 
   @GetMapping("/rs/{index}")
-  public ResponseEntity<RsEvent> getRsEvent(@PathVariable int index) {
-    List<RsEvent> rsEvents =
-        rsEventRepository.findAll().stream()
-            .map(
-                item ->
-                    RsEvent.builder()
-                        .eventName(item.getEventName())
-                        .keyword(item.getKeyword())
-                        .userId(item.getId())
-                        .voteNum(item.getVoteNum())
-                        .build())
-            .collect(Collectors.toList());
-    if (index < 1 || index > rsEvents.size()) {
-      throw new RequestNotValidException("invalid index");
+  public ResponseEntity<RsEvent> getRsEvent(@PathVariable int index, WebRequest webRequest) {
+    if (webRequest.checkNotModified(etag())) {
+      return null;
     }
-    return ResponseEntity.ok(rsEvents.get(index - 1));
+    return rsEventPager
+        .get(index)
+        .map(ResponseEntity::ok)
+        .orElseThrow(() -> new RequestNotValidException("invalid index"));
   }
 
   @PostMapping("/rs/event")
@@ -91,21 +117,26 @@ public class RsController {
 
   @PostMapping("/rs/vote/{id}")
   public ResponseEntity vote(@PathVariable int id, @RequestBody Vote vote) {
-    System.out.println(id);
-    System.out.println(vote);
     rsService.vote(vote, id);
     return ResponseEntity.ok().build();
   }
 
+  @PostMapping("/rs/vote/batch")
+  public ResponseEntity<List<VoteResult>> voteBatch(@RequestBody List<Vote> votes) {
+    return ResponseEntity.ok(rsService.voteBatch(votes));
+  }
+
   @PostMapping("/rs/buy/{id}")
   public ResponseEntity buy(@PathVariable int id, @RequestBody Trade trade){
-    System.out.println(id);
-    System.out.println(trade);
     return rsService.buy(trade, id);
 
   }
 
 
+  private String etag() {
+    return "\"" + Long.toHexString(rsEventPager.version()) + "\"";
+  }
+
   @ExceptionHandler(RequestNotValidException.class)
   public ResponseEntity<Error> handleRequestErrorHandler(RequestNotValidException e) {
     Error error = new Error();
@@ -1,9 +1,12 @@
 package com.thoughtworks.rslist.api;
 
 import com.thoughtworks.rslist.domain.User;
-import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.domain.UserImportReport;
 import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.service.UserDeleter;
+import com.thoughtworks.rslist.service.UserImporter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,26 +15,35 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 
 @RestController
 public class UserController {
+  static final String NDJSON = "application/x-ndjson";
+
   @Autowired UserRepository userRepository;
+  @Autowired UserDeleter userDeleter;
+  @Autowired UserImporter userImporter;
 
   @PostMapping("/user")
   public void register(@RequestBody @Valid User user) {
-    UserDto userDto = new UserDto();
-    userDto.setGender(user.getGender());
-    userDto.setPhone(user.getPhone());
-    userDto.setVoteNum(user.getVoteNum());
-    userDto.setAge(user.getAge());
-    userDto.setEmail(user.getEmail());
-    userDto.setUserName(user.getUserName());
-    userRepository.save(userDto);
+    userRepository.save(UserImporter.toUserDto(user));
+  }
+
+  @PostMapping(value = "/users", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public UserImportReport importUsers(InputStream body) throws IOException {
+    return userImporter.importArray(body);
+  }
+
+  @PostMapping(value = "/users", consumes = NDJSON)
+  public UserImportReport importUserLines(InputStream body) throws IOException {
+    return userImporter.importLines(body);
   }
 
   @DeleteMapping("/user/{id}")
   public ResponseEntity deleteUser(@PathVariable int id) {
-    userRepository.deleteById(id);
+    userDeleter.delete(id);
     return ResponseEntity.ok().build();
   }
 }
@@ -1,36 +1,48 @@
 package com.thoughtworks.rslist.api;
 
 import com.thoughtworks.rslist.domain.Vote;
-import com.thoughtworks.rslist.repository.VoteRepository;
+import com.thoughtworks.rslist.domain.VoteRecordPage;
+import com.thoughtworks.rslist.exception.Error;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.service.VoteRecordPager;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 public class VoteController {
-  @Autowired VoteRepository voteRepository;
+  static final int DEFAULT_PAGE_SIZE = 5;
+
+  @Autowired VoteRecordPager voteRecordPager;
 
   @GetMapping("/voteRecord")
   public ResponseEntity<List<Vote>> getVoteRecord(
-      @RequestParam int userId, @RequestParam int rsEventId, @RequestParam int pageIndex) {
-    Pageable pageable = PageRequest.of(pageIndex - 1, 5);
-    return ResponseEntity.ok(
-        voteRepository.findAllByUserIdAndRsEventId(userId, rsEventId, pageable).stream()
-            .map(
-                item ->
-                    Vote.builder()
-                        .voteNum(item.getNum())
-                        .userId(item.getUser().getId())
-                        .time(item.getLocalDateTime())
-                        .rsEventId(item.getRsEvent().getId())
-                        .build())
-            .collect(Collectors.toList()));
+      @RequestParam int userId,
+      @RequestParam int rsEventId,
+      @RequestParam(required = false) Integer pageIndex,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer size) {
+    int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+    if (pageIndex != null && cursor == null) {
+      return ResponseEntity.ok(voteRecordPager.getPage(userId, rsEventId, pageIndex, pageSize));
+    }
+    VoteRecordPage page = voteRecordPager.getPage(userId, rsEventId, cursor, pageSize);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (page.getNextCursor() != null) {
+      response.header(RsController.NEXT_CURSOR_HEADER, page.getNextCursor());
+    }
+    return response.body(page.getVotes());
+  }
+
+  @ExceptionHandler(RequestNotValidException.class)
+  public ResponseEntity<Error> handleRequestErrorHandler(RequestNotValidException e) {
+    Error error = new Error();
+    error.setError(e.getMessage());
+    return ResponseEntity.badRequest().body(error);
   }
 }
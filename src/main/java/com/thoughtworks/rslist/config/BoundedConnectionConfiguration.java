@@ -0,0 +1,41 @@
+package com.thoughtworks.rslist.config;
+
+import com.thoughtworks.rslist.config.ReadReplicaConfiguration.ReplicaDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * With {@code rs.execution.mode=bounded}, every connection pool sits behind a {@link
+ * BoundedDataSource} admitting {@code rs.execution.max-connections} holders, so a large request
+ * thread pool ({@code server.tomcat.max-threads}) queues fairly in front of the pool and gives up
+ * after {@code rs.execution.connection-timeout}. The primary and replica pools get a bound each.
+ *
+ * <p>Running requests on virtual threads would be a third mode, but needs a Java 21 runtime and
+ * build; this one targets Java 11.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rs.execution.mode", havingValue = "bounded")
+public class BoundedConnectionConfiguration {
+
+  @Bean
+  public static BeanPostProcessor boundedDataSourcePostProcessor(
+      @Value("${rs.execution.max-connections:10}") int maxConnections,
+      @Value("${rs.execution.connection-timeout:30000}") long connectionTimeout) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource) {
+          return new BoundedDataSource((HikariDataSource) bean, maxConnections, connectionTimeout);
+        }
+        if (bean instanceof ReplicaDataSource) {
+          ((ReplicaDataSource) bean).bound(maxConnections, connectionTimeout);
+        }
+        return bean;
+      }
+    };
+  }
+}
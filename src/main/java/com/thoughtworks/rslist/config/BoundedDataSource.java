@@ -0,0 +1,107 @@
+package com.thoughtworks.rslist.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lets at most a fixed number of callers hold a connection at a time. Callers beyond that wait on
+ * a fair semaphore, in arrival order and with their own timeout, instead of piling up inside the
+ * pool.
+ */
+public class BoundedDataSource extends DelegatingDataSource implements AutoCloseable {
+  private final Semaphore permits;
+  private final long timeoutMillis;
+
+  public BoundedDataSource(DataSource targetDataSource, int maxConnections, long timeoutMillis) {
+    super(targetDataSource);
+    this.permits = new Semaphore(maxConnections, true);
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    acquire();
+    try {
+      return releasing(super.getConnection());
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    acquire();
+    try {
+      return releasing(super.getConnection(username, password));
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /** Closes the wrapped pool, so a pool bean keeps its destroy method when wrapped. */
+  @Override
+  public void close() throws Exception {
+    DataSource target = getTargetDataSource();
+    if (target instanceof AutoCloseable) {
+      ((AutoCloseable) target).close();
+    }
+  }
+
+  int availablePermits() {
+    return permits.availablePermits();
+  }
+
+  private void acquire() throws SQLException {
+    try {
+      if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+        throw new SQLTransientConnectionException(
+            "no connection available within " + timeoutMillis + "ms");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLTransientConnectionException("interrupted while waiting for a connection", e);
+    }
+  }
+
+  private Connection releasing(Connection connection) {
+    AtomicBoolean closed = new AtomicBoolean();
+    return (Connection)
+        Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "equals":
+                  return proxy == args[0];
+                case "hashCode":
+                  return System.identityHashCode(proxy);
+                case "close":
+                  if (closed.compareAndSet(false, true)) {
+                    try {
+                      connection.close();
+                    } finally {
+                      permits.release();
+                    }
+                  }
+                  return null;
+                default:
+                  try {
+                    return method.invoke(connection, args);
+                  } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                  }
+              }
+            });
+  }
+}
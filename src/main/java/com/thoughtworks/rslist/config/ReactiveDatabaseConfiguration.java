@@ -0,0 +1,44 @@
+package com.thoughtworks.rslist.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.connectionfactory.R2dbcTransactionManager;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Non-blocking access to the same tables for the {@code /reactive} endpoints, enabled with
+ * {@code rs.reactive.enabled=true}. The R2DBC transaction manager is deliberately not a bean so
+ * that {@code @Transactional} keeps resolving to the JPA one.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rs.reactive.enabled", havingValue = "true")
+public class ReactiveDatabaseConfiguration {
+
+  @Bean(destroyMethod = "dispose")
+  public ConnectionPool reactiveConnectionPool(
+      @Value("${rs.reactive.url}") String url,
+      @Value("${rs.reactive.pool.max-size:10}") int maxSize) {
+    return new ConnectionPool(
+        ConnectionPoolConfiguration.builder(ConnectionFactories.get(url))
+            .initialSize(Math.min(maxSize, 2))
+            .maxSize(maxSize)
+            .build());
+  }
+
+  @Bean
+  public DatabaseClient reactiveDatabaseClient(ConnectionPool reactiveConnectionPool) {
+    return DatabaseClient.create(reactiveConnectionPool);
+  }
+
+  @Bean
+  public TransactionalOperator reactiveTransactionalOperator(
+      ConnectionPool reactiveConnectionPool) {
+    return TransactionalOperator.create(new R2dbcTransactionManager(reactiveConnectionPool));
+  }
+}
@@ -0,0 +1,97 @@
+package com.thoughtworks.rslist.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+
+/**
+ * With {@code rs.datasource.replica.enabled=true}, read-only transactions of GET requests go to
+ * a second pool on {@code rs.datasource.replica.url}; writes, and reads anywhere else such as
+ * startup loading, the vote budget and the schedulers, stay on {@code spring.datasource}. With
+ * open-session-in-view a request keeps the connection its first transaction was routed to.
+ *
+ * <p>The two pools are created inside the {@code dataSource} bean rather than exposed as beans:
+ * Boot initializes the schema as soon as any {@link DataSource} bean is created, and that would
+ * resolve the routing proxy while it is still being built. Closing the proxy closes both pools.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rs.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfiguration {
+
+  @Bean
+  @Primary
+  public ReplicaDataSource dataSource(
+      DataSourceProperties dataSourceProperties,
+      @Value("${rs.datasource.replica.url}") String url,
+      @Value("${rs.datasource.replica.username:}") String username,
+      @Value("${rs.datasource.replica.password:}") String password,
+      @Value("${rs.datasource.replica.driver-class-name:}") String driverClassName,
+      @Value("${rs.datasource.replica.max-pool-size:10}") int maxPoolSize) {
+    HikariDataSource primary =
+        dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    primary.setPoolName("primary");
+    DataSourceBuilder<HikariDataSource> builder =
+        DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .url(url)
+            .username(username)
+            .password(password);
+    if (StringUtils.hasText(driverClassName)) {
+      builder.driverClassName(driverClassName);
+    }
+    HikariDataSource replica = builder.build();
+    replica.setPoolName("replica");
+    replica.setMaximumPoolSize(maxPoolSize);
+    replica.setReadOnly(true);
+    return new ReplicaDataSource(primary, replica);
+  }
+
+  @Bean
+  public ReplicaRoutingFilter replicaRoutingFilter(
+      @Value("${rs.datasource.replica.read-after-write-window:0}") long readAfterWriteWindow) {
+    return new ReplicaRoutingFilter(readAfterWriteWindow);
+  }
+
+  /** The lazy proxy in front of {@link ReplicaRoutingDataSource}, owning both pools. */
+  public static class ReplicaDataSource extends LazyConnectionDataSourceProxy {
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+
+    ReplicaDataSource(HikariDataSource primary, HikariDataSource replica) {
+      this.primary = primary;
+      this.replica = replica;
+      route(primary, replica);
+    }
+
+    public DataSource getPrimary() {
+      return primary;
+    }
+
+    /** Puts a {@link BoundedDataSource} in front of each pool. */
+    void bound(int maxConnections, long timeoutMillis) {
+      route(
+          new BoundedDataSource(primary, maxConnections, timeoutMillis),
+          new BoundedDataSource(replica, maxConnections, timeoutMillis));
+    }
+
+    public void close() {
+      replica.close();
+      primary.close();
+    }
+
+    private void route(DataSource primary, DataSource replica) {
+      ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica);
+      routing.afterPropertiesSet();
+      setTargetDataSource(routing);
+    }
+  }
+}
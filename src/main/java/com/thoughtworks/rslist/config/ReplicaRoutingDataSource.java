@@ -0,0 +1,45 @@
+package com.thoughtworks.rslist.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions of threads that {@link #allowReplicaReads allow it} to the replica
+ * and everything else to the primary. Must sit behind a {@code LazyConnectionDataSourceProxy}:
+ * the transaction manager takes its connection before the read-only flag is published, and the
+ * proxy delays the lookup until the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+  enum Target {
+    PRIMARY,
+    REPLICA
+  }
+
+  private static final ThreadLocal<Boolean> replicaReads = new ThreadLocal<>();
+
+  public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+    Map<Object, Object> targets = new HashMap<>();
+    targets.put(Target.PRIMARY, primary);
+    targets.put(Target.REPLICA, replica);
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+  }
+
+  public static void allowReplicaReads(boolean allowed) {
+    if (allowed) {
+      replicaReads.set(Boolean.TRUE);
+    } else {
+      replicaReads.remove();
+    }
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    return readOnly && replicaReads.get() != null ? Target.REPLICA : Target.PRIMARY;
+  }
+}
@@ -0,0 +1,59 @@
+package com.thoughtworks.rslist.config;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Lets GET and HEAD requests read from the replica. When {@code read-after-write-window} is set,
+ * every other request marks its client with a cookie, and that client's reads stay on the primary
+ * until the window has passed, so it sees its own writes despite replication lag.
+ */
+public class ReplicaRoutingFilter extends OncePerRequestFilter {
+  static final String PRIMARY_UNTIL_COOKIE = "rs-primary-until";
+
+  private final long readAfterWriteWindow;
+
+  public ReplicaRoutingFilter(long readAfterWriteWindow) {
+    this.readAfterWriteWindow = readAfterWriteWindow;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    long now = System.currentTimeMillis();
+    boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+    if (!read && readAfterWriteWindow > 0) {
+      Cookie cookie = new Cookie(PRIMARY_UNTIL_COOKIE, Long.toString(now + readAfterWriteWindow));
+      cookie.setPath("/");
+      cookie.setHttpOnly(true);
+      cookie.setMaxAge((int) Math.max(1, (readAfterWriteWindow + 999) / 1000));
+      response.addCookie(cookie);
+    }
+    ReplicaRoutingDataSource.allowReplicaReads(read && primaryUntil(request) <= now);
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      ReplicaRoutingDataSource.allowReplicaReads(false);
+    }
+  }
+
+  private static long primaryUntil(HttpServletRequest request) {
+    Cookie cookie = WebUtils.getCookie(request, PRIMARY_UNTIL_COOKIE);
+    if (cookie == null) {
+      return 0;
+    }
+    try {
+      return Long.parseLong(cookie.getValue());
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.thoughtworks.rslist.config;
+
+import com.thoughtworks.rslist.metrics.TimedRepositoryFactoryBean;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/** Builds the JPA repositories through {@link TimedRepositoryFactoryBean}, so they are timed. */
+@Configuration
+@EnableJpaRepositories(
+    basePackageClasses = RsEventRepository.class,
+    repositoryFactoryBeanClass = TimedRepositoryFactoryBean.class)
+public class RepositoryConfiguration {}
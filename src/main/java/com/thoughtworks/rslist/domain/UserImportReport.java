@@ -0,0 +1,24 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserImportReport {
+  private int imported;
+  private List<Error> errors;
+
+  /** A rejected user: its line in NDJSON input, or its 1-based position in a JSON array. */
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor
+  public static class Error {
+    private int line;
+    private String error;
+  }
+}
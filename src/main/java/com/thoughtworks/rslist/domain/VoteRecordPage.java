@@ -0,0 +1,13 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class VoteRecordPage {
+  private List<Vote> votes;
+  private String nextCursor;
+}
@@ -0,0 +1,26 @@
+package com.thoughtworks.rslist.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VoteResult {
+    private int index;
+    private boolean success;
+    private String error;
+
+    public static VoteResult success(int index) {
+        return VoteResult.builder().index(index).success(true).build();
+    }
+
+    public static VoteResult failure(int index, String error) {
+        return VoteResult.builder().index(index).success(false).error(error).build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.thoughtworks.rslist.dto;
+
+/**
+ * Every entity takes its id from one {@code hibernate_sequence} (a sequence where the database
+ * has them, a one-row table on MySQL) handed out in blocks of {@link #BLOCK_SIZE}, so Hibernate
+ * knows the ids before flushing and can send inserts as JDBC batches. The sequence value is the
+ * first id of a block; code that allocates ids outside Hibernate must take whole blocks too.
+ */
+public final class Ids {
+  public static final String POOLED = "pooled";
+  public static final String SEQUENCE = "hibernate_sequence";
+  public static final int BLOCK_SIZE = 50;
+
+  private Ids() {}
+}
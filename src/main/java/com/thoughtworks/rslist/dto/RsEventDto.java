@@ -1,23 +1,29 @@
 package com.thoughtworks.rslist.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.thoughtworks.rslist.service.RsEventRankingListener;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 
 import javax.persistence.*;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Builder
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "rsEvent")
-public class RsEventDto {
-  @Id @GeneratedValue private int id;
+@EntityListeners(RsEventRankingListener.class)
+public class RsEventDto implements RsEventSummary {
+  @Id @GeneratedValue(generator = Ids.POOLED) private int id;
   private String eventName;
   private String keyword;
   private int voteNum;
@@ -29,4 +35,9 @@ public class RsEventDto {
 
   @OneToMany(cascade = CascadeType.REMOVE, mappedBy = "rsEvent")
   private List<TradeDto> tradeDtos;
+
+  /** A detached summary, as read by the {@code RsEventRepository} summary queries. */
+  public RsEventDto(int id, String eventName, String keyword, int voteNum, int rank) {
+    this(id, eventName, keyword, voteNum, rank, null, null, null);
+  }
 }
@@ -0,0 +1,18 @@
+package com.thoughtworks.rslist.dto;
+
+/**
+ * The columns the list and index reads need. Repository methods returning it select only these
+ * columns, so no entity, user or collection is loaded; {@link RsEventDto} implements it as well,
+ * so those methods construct detached {@code RsEventDto}s with an explicit query.
+ */
+public interface RsEventSummary {
+  int getId();
+
+  String getEventName();
+
+  String getKeyword();
+
+  int getVoteNum();
+
+  int getRank();
+}
@@ -1,22 +1,28 @@
 package com.thoughtworks.rslist.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.thoughtworks.rslist.service.RankAuctionListener;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "trade")
+@EntityListeners(RankAuctionListener.class)
 public class TradeDto {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = Ids.POOLED)
     private int id;
     private int amount;
     private int rank ;
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
@@ -18,9 +19,14 @@ import java.time.LocalDateTime;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "vote")
+@Table(
+    name = "vote",
+    indexes =
+        @Index(
+            name = "idx_vote_user_event_time",
+            columnList = "user_id, rs_event_id, localDateTime, id"))
 public class VoteDto {
-  @Id @GeneratedValue private int id;
+  @Id @GeneratedValue(generator = Ids.POOLED) private int id;
 
   private LocalDateTime localDateTime;
 
@@ -0,0 +1,19 @@
+package com.thoughtworks.rslist.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a vote that the vote history needs, including the id that breaks ties between
+ * votes cast at the same time. Repository methods returning it load no entity.
+ */
+public interface VoteRecord {
+  int getId();
+
+  int getUserId();
+
+  int getRsEventId();
+
+  LocalDateTime getLocalDateTime();
+
+  int getNum();
+}
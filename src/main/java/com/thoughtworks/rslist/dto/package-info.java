@@ -0,0 +1,14 @@
+/** Declares the {@link Ids#POOLED} generator shared by every entity. */
+@GenericGenerator(
+    name = Ids.POOLED,
+    strategy = "enhanced-sequence",
+    parameters = {
+      @Parameter(name = "sequence_name", value = Ids.SEQUENCE),
+      @Parameter(name = "initial_value", value = "1"),
+      @Parameter(name = "increment_size", value = "" + Ids.BLOCK_SIZE),
+      @Parameter(name = "optimizer", value = "pooled-lo")
+    })
+package com.thoughtworks.rslist.dto;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
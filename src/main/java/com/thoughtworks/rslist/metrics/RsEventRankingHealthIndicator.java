@@ -0,0 +1,34 @@
+package com.thoughtworks.rslist.metrics;
+
+import com.thoughtworks.rslist.service.RsEventCounter;
+import com.thoughtworks.rslist.service.RsEventRankingLoader;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+/** Reports the application as down until the in-memory ranking has been loaded. */
+@Component
+public class RsEventRankingHealthIndicator extends AbstractHealthIndicator {
+  final RsEventRankingLoader rsEventRankingLoader;
+  final RsEventCounter rsEventCounter;
+
+  public RsEventRankingHealthIndicator(
+      RsEventRankingLoader rsEventRankingLoader, RsEventCounter rsEventCounter) {
+    this.rsEventRankingLoader = rsEventRankingLoader;
+    this.rsEventCounter = rsEventCounter;
+  }
+
+  @Override
+  protected void doHealthCheck(Health.Builder builder) {
+    String source = rsEventRankingLoader.getSource();
+    if (source == null) {
+      builder.outOfService().withDetail("ranking", "loading");
+      return;
+    }
+    builder
+        .up()
+        .withDetail("source", source)
+        .withDetail("loadMillis", rsEventRankingLoader.getLoadMillis())
+        .withDetail("events", rsEventCounter.get());
+  }
+}
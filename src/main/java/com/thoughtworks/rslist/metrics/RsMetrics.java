@@ -0,0 +1,25 @@
+package com.thoughtworks.rslist.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/** Counters for requests the service turns down, tagged with the same reason the client sees. */
+@Component
+public class RsMetrics {
+  static final String VOTE_REJECTED = "rs.vote.rejected";
+  static final String BID_REJECTED = "rs.bid.rejected";
+
+  final MeterRegistry meterRegistry;
+
+  public RsMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  public void voteRejected(String reason) {
+    meterRegistry.counter(VOTE_REJECTED, "reason", reason).increment();
+  }
+
+  public void bidRejected(String reason) {
+    meterRegistry.counter(BID_REJECTED, "reason", reason).increment();
+  }
+}
@@ -0,0 +1,86 @@
+package com.thoughtworks.rslist.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Creates the application's repositories with a timer around every call, including the
+ * inherited CRUD methods, recorded as {@code rs.repository.calls} tagged with repository, method
+ * and outcome. The timer is added to each repository's own proxy, so calls are told apart by the
+ * repository interface even where they run the same {@code SimpleJpaRepository} method.
+ */
+public class TimedRepositoryFactoryBean<T extends Repository<S, ID>, S, ID>
+    extends JpaRepositoryFactoryBean<T, S, ID> {
+  static final String REPOSITORY_CALLS = "rs.repository.calls";
+
+  private ObjectProvider<MeterRegistry> meterRegistry;
+
+  public TimedRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
+    super(repositoryInterface);
+  }
+
+  @Override
+  public void setBeanFactory(BeanFactory beanFactory) {
+    super.setBeanFactory(beanFactory);
+    meterRegistry = beanFactory.getBeanProvider(MeterRegistry.class);
+  }
+
+  @Override
+  protected RepositoryFactorySupport createRepositoryFactory(EntityManager entityManager) {
+    RepositoryFactorySupport factory = super.createRepositoryFactory(entityManager);
+    factory.addRepositoryProxyPostProcessor(new Timing(meterRegistry));
+    return factory;
+  }
+
+  static class Timing implements RepositoryProxyPostProcessor {
+    // Looked up on the first call: repositories are created before the registry is configured.
+    final ObjectProvider<MeterRegistry> meterRegistry;
+
+    Timing(ObjectProvider<MeterRegistry> meterRegistry) {
+      this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void postProcess(ProxyFactory factory, RepositoryInformation repositoryInformation) {
+      String repository = repositoryInformation.getRepositoryInterface().getSimpleName();
+      factory.addAdvice(0, (MethodInterceptor) invocation -> time(repository, invocation));
+    }
+
+    private Object time(String repository, MethodInvocation invocation) throws Throwable {
+      MeterRegistry registry = meterRegistry.getIfAvailable();
+      if (registry == null) {
+        return invocation.proceed();
+      }
+      Timer.Sample sample = Timer.start(registry);
+      String exception = "none";
+      try {
+        return invocation.proceed();
+      } catch (Throwable e) {
+        exception = e.getClass().getSimpleName();
+        throw e;
+      } finally {
+        sample.stop(
+            registry.timer(
+                REPOSITORY_CALLS,
+                "repository",
+                repository,
+                "method",
+                invocation.getMethod().getName(),
+                "exception",
+                exception));
+      }
+    }
+  }
+}
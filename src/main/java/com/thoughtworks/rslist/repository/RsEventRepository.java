@@ -1,17 +1,68 @@
 package com.thoughtworks.rslist.repository;
 
 import com.thoughtworks.rslist.dto.RsEventDto;
-import org.springframework.data.repository.CrudRepository;
+import com.thoughtworks.rslist.dto.RsEventSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface RsEventRepository extends CrudRepository<RsEventDto, Integer> {
+public interface RsEventRepository
+    extends PagingAndSortingRepository<RsEventDto, Integer>, RsEventRepositoryCustom {
+  // RsEventDto implements RsEventSummary, so a projection would load whole entities.
+  String SELECT_SUMMARY =
+      "select new com.thoughtworks.rslist.dto.RsEventDto("
+          + "e.id, e.eventName, e.keyword, e.voteNum, e.rank) from RsEventDto e ";
+
   List<RsEventDto> findAll();
 
+  @Query(SELECT_SUMMARY)
+  List<RsEventSummary> findAllProjectedBy();
+
+  @Query(SELECT_SUMMARY + "where e.id > :id")
+  List<RsEventSummary> findAllProjectedByIdGreaterThan(@Param("id") int id);
+
+  @Query(SELECT_SUMMARY + "where e.id in :ids")
+  List<RsEventSummary> findAllProjectedByIdIn(@Param("ids") Collection<Integer> ids);
+
+  @Query(SELECT_SUMMARY + "where e.rank > :rank order by e.rank asc, e.id asc")
+  List<RsEventSummary> findAllByRankGreaterThanOrderByRankAscIdAsc(@Param("rank") int rank);
+
+  @Query(SELECT_SUMMARY + "where e.rank = :rank order by e.voteNum desc, e.id asc")
+  List<RsEventSummary> findAllByRankOrderByVoteNumDescIdAsc(@Param("rank") int rank);
+
+  @Query(
+      SELECT_SUMMARY
+          + "where e.rank = 0 "
+          + "and (e.voteNum < :voteNum or (e.voteNum = :voteNum and e.id > :id)) "
+          + "order by e.voteNum desc, e.id asc")
+  List<RsEventSummary> findUnrankedAfter(
+      @Param("voteNum") int voteNum, @Param("id") int id, Pageable pageable);
+
+  long countByRank(int rank);
+
+  @Query("select e.id from RsEventDto e where e.id in :ids")
+  List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+  @Modifying
+  @Query("update RsEventDto e set e.voteNum = e.voteNum + :num where e.id = :id")
+  int increaseVoteNum(@Param("id") int id, @Param("num") int num);
+
   @Transactional
   void deleteAllByUserId(int userId);
 
+  @Query("select e.id from RsEventDto e where e.user.id = :userId")
+  List<Integer> findIdsByUserId(@Param("userId") int userId);
+
+  @Modifying
+  @Query("delete from RsEventDto e where e.user.id = :userId")
+  int deleteAllInBulkByUserId(@Param("userId") int userId);
+
   @Transactional
   void deleteAllByRank(int rank);
 }
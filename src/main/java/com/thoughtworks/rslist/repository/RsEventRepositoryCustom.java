@@ -0,0 +1,9 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.RsEventSummary;
+
+import java.util.List;
+
+public interface RsEventRepositoryCustom {
+  List<RsEventSummary> findUnrankedWindow(int offset, int limit);
+}
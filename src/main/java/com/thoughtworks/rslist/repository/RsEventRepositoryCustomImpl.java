@@ -0,0 +1,45 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.RsEventSummary;
+import lombok.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class RsEventRepositoryCustomImpl implements RsEventRepositoryCustom {
+  @PersistenceContext EntityManager entityManager;
+
+  @Override
+  public List<RsEventSummary> findUnrankedWindow(int offset, int limit) {
+    return entityManager
+        .createQuery(
+            "select e.id, e.eventName, e.keyword, e.voteNum, e.rank from RsEventDto e "
+                + "where e.rank = 0 order by e.voteNum desc, e.id asc",
+            Tuple.class)
+        .setFirstResult(offset)
+        .setMaxResults(limit)
+        .getResultList()
+        .stream()
+        .map(
+            tuple ->
+                new Summary(
+                    tuple.get(0, Integer.class),
+                    tuple.get(1, String.class),
+                    tuple.get(2, String.class),
+                    tuple.get(3, Integer.class),
+                    tuple.get(4, Integer.class)))
+        .collect(Collectors.toList());
+  }
+
+  @Value
+  private static class Summary implements RsEventSummary {
+    int id;
+    String eventName;
+    String keyword;
+    int voteNum;
+    int rank;
+  }
+}
@@ -1,7 +1,12 @@
 package com.thoughtworks.rslist.repository;
 import com.thoughtworks.rslist.dto.TradeDto;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,5 +14,13 @@ public interface TradeRepository extends CrudRepository<TradeDto, Integer>{
 
     List<TradeDto> findAll();
 
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<TradeDto> findByRank(Integer integer);
+
+    List<TradeDto> findAllByRsEventUserId(int userId);
+
+    @Modifying
+    @Query("delete from TradeDto t where t.rsEvent.id in "
+            + "(select e.id from RsEventDto e where e.user.id = :userId)")
+    int deleteAllOnRsEventsOfUser(@Param("userId") int userId);
 }
@@ -0,0 +1,6 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.VoteJournalDto;
+import org.springframework.data.repository.CrudRepository;
+
+public interface VoteJournalRepository extends CrudRepository<VoteJournalDto, Integer> {}
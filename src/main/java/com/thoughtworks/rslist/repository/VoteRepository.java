@@ -1,12 +1,61 @@
 package com.thoughtworks.rslist.repository;
 
+import com.thoughtworks.rslist.domain.Vote;
 import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.dto.VoteRecord;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface VoteRepository extends PagingAndSortingRepository<VoteDto, Integer> {
+    String SELECT_VOTE_RECORD = "select v.id as id, v.user.id as userId, "
+            + "v.rsEvent.id as rsEventId, v.localDateTime as localDateTime, v.num as num "
+            + "from VoteDto v "
+            + "where v.user.id = :userId and v.rsEvent.id = :rsEventId ";
+
     List<VoteDto> findAll();
     List<VoteDto> findAllByUserIdAndRsEventId(int userId, int rsEventId, Pageable pageable);
+
+    @Query("select new com.thoughtworks.rslist.domain.Vote("
+            + "v.user.id, v.rsEvent.id, v.localDateTime, v.num) from VoteDto v "
+            + "where v.user.id = :userId and v.rsEvent.id = :rsEventId "
+            + "order by v.localDateTime, v.id")
+    List<Vote> findVoteRecords(
+            @Param("userId") int userId, @Param("rsEventId") int rsEventId, Pageable pageable);
+
+    @Query(SELECT_VOTE_RECORD + "and v.localDateTime is null and v.id > :id order by v.id")
+    List<VoteRecord> findVoteRecordsWithoutTimeAfter(
+            @Param("userId") int userId, @Param("rsEventId") int rsEventId, @Param("id") int id,
+            Pageable pageable);
+
+    @Query(SELECT_VOTE_RECORD + "and v.localDateTime is not null order by v.localDateTime, v.id")
+    List<VoteRecord> findTimedVoteRecords(
+            @Param("userId") int userId, @Param("rsEventId") int rsEventId, Pageable pageable);
+
+    @Query(SELECT_VOTE_RECORD
+            + "and (v.localDateTime > :time or (v.localDateTime = :time and v.id > :id)) "
+            + "order by v.localDateTime, v.id")
+    List<VoteRecord> findVoteRecordsAfter(
+            @Param("userId") int userId, @Param("rsEventId") int rsEventId,
+            @Param("time") LocalDateTime time, @Param("id") int id, Pageable pageable);
+
+    @Query("select coalesce(max(v.id), 0) from VoteDto v")
+    int findMaxId();
+
+    @Query("select distinct v.rsEvent.id from VoteDto v where v.id > :id")
+    List<Integer> findRsEventIdsVotedAfter(@Param("id") int id);
+
+    @Modifying
+    @Query("delete from VoteDto v where v.rsEvent.id in "
+            + "(select e.id from RsEventDto e where e.user.id = :userId)")
+    int deleteAllOnRsEventsOfUser(@Param("userId") int userId);
+
+    @Modifying
+    @Query("delete from VoteDto v where v.user.id = :userId")
+    int deleteAllOfUser(@Param("userId") int userId);
 }
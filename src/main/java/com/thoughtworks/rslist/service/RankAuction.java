@@ -0,0 +1,148 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.TradeDto;
+import lombok.AllArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the highest bid of every rank in memory and decides competing bids atomically per rank: a
+ * bid wins when it is higher than the current one, or when the current holder raises its own bid.
+ * Accepted bids are persisted by {@link TradeWriter} on a single writer thread per rank stripe, so
+ * the database sees them in the order they won. A bid is only acknowledged once its trade is
+ * written; queued writes are drained on shutdown.
+ */
+@Slf4j
+@Component
+public class RankAuction {
+  final TradeWriter tradeWriter;
+
+  private final Map<Integer, Bid> bids = new ConcurrentHashMap<>();
+  private final ExecutorService[] writers;
+
+  public RankAuction(
+      TradeWriter tradeWriter, @Value("${rs.auction.writer-threads:4}") int writerThreads) {
+    this.tradeWriter = tradeWriter;
+    this.writers = new ExecutorService[writerThreads];
+    for (int i = 0; i < writerThreads; i++) {
+      String name = "rank-auction-" + i;
+      writers[i] =
+          Executors.newSingleThreadExecutor(
+              runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+              });
+    }
+  }
+
+  public void reload(Collection<TradeDto> tradeDtos) {
+    bids.clear();
+    tradeDtos.forEach(this::saved);
+  }
+
+  /** Returns whether the bid won the rank. */
+  public boolean bid(int rsEventId, int rank, int amount) {
+    Bid placed = new Bid(rsEventId, amount, 0);
+    Bid[] previous = new Bid[1];
+    Bid winner =
+        bids.compute(
+            rank,
+            (key, current) -> {
+              previous[0] = current;
+              return current == null || placed.beats(current) ? placed : current;
+            });
+    if (winner != placed) {
+      return false;
+    }
+    await(
+        writers[Math.floorMod(rank, writers.length)].submit(
+            () -> persist(rank, placed, previous[0])));
+    return true;
+  }
+
+  public void saved(TradeDto tradeDto) {
+    Bid bid =
+        new Bid(
+            tradeDto.getRsEvent() == null ? 0 : tradeDto.getRsEvent().getId(),
+            tradeDto.getAmount(),
+            tradeDto.getId());
+    AfterCommit.run(
+        () ->
+            bids.compute(
+                tradeDto.getRank(),
+                (key, current) ->
+                    current == null || current.tradeId == bid.tradeId || bid.beats(current)
+                        ? bid
+                        : current));
+  }
+
+  public void removed(TradeDto tradeDto) {
+    AfterCommit.run(
+        () ->
+            bids.computeIfPresent(
+                tradeDto.getRank(),
+                (key, current) -> current.tradeId == tradeDto.getId() ? null : current));
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    for (ExecutorService writer : writers) {
+      writer.shutdown();
+    }
+    for (ExecutorService writer : writers) {
+      if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+        log.warn("rank auction writer did not finish pending trades");
+      }
+    }
+  }
+
+  private void persist(int rank, Bid placed, Bid previous) {
+    try {
+      tradeWriter.write(placed.rsEventId, rank, placed.amount);
+    } catch (RuntimeException e) {
+      log.error("failed to persist bid {} for rank {}", placed, rank, e);
+      bids.compute(rank, (key, current) -> current == placed ? previous : current);
+      throw e;
+    }
+  }
+
+  private static void await(Future<?> written) {
+    try {
+      written.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  @AllArgsConstructor
+  @ToString
+  private static class Bid {
+    final int rsEventId;
+    final int amount;
+    final int tradeId;
+
+    boolean beats(Bid current) {
+      return amount > current.amount
+          || (rsEventId == current.rsEventId && amount >= current.amount);
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.TradeDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+public class RankAuctionListener {
+  @Autowired @Lazy RankAuction rankAuction;
+
+  @PostPersist
+  @PostUpdate
+  public void onSave(TradeDto tradeDto) {
+    rankAuction.saved(tradeDto);
+  }
+
+  @PostRemove
+  public void onRemove(TradeDto tradeDto) {
+    rankAuction.removed(tradeDto);
+  }
+}
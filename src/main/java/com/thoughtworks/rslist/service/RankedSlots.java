@@ -0,0 +1,40 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.RsEventSummary;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Interleaves bought events with a stream of unranked events read in ranking order: a bought
+ * event is emitted once its rank is reached, the rest after the last unranked event.
+ */
+class RankedSlots {
+  private final List<? extends RsEventSummary> ranked;
+  private final Consumer<RsEventSummary> sink;
+  private int rankedIndex;
+  private int position = 1;
+
+  RankedSlots(List<? extends RsEventSummary> ranked, Consumer<RsEventSummary> sink) {
+    this.ranked = ranked;
+    this.sink = sink;
+  }
+
+  void unranked(RsEventSummary summary) {
+    while (rankedIndex < ranked.size() && ranked.get(rankedIndex).getRank() <= position) {
+      emit(ranked.get(rankedIndex++));
+    }
+    emit(summary);
+  }
+
+  void rest() {
+    while (rankedIndex < ranked.size()) {
+      emit(ranked.get(rankedIndex++));
+    }
+  }
+
+  private void emit(RsEventSummary summary) {
+    sink.accept(summary);
+    position++;
+  }
+}
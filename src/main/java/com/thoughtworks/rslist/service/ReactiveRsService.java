@@ -0,0 +1,277 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.Ids;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.RsEventSummary;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.metrics.RsMetrics;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Row;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Same voting rules and list order as {@link RsService} and {@link RsEventPager}, but on R2DBC:
+ * no thread is parked while a statement is in flight. Votes run the guarded updates of
+ * {@link VoteWriter} in one reactive transaction and then update the in-memory state the JPA
+ * path would have touched.
+ */
+@Service
+@ConditionalOnProperty(name = "rs.reactive.enabled", havingValue = "true")
+public class ReactiveRsService {
+  private static final String INVALID_RS_EVENT = "invalid rs event";
+  private static final String INVALID_VOTE_NUM = "invalid user or vote num";
+  static final String DECREASE_USER_VOTE_NUM =
+      "update user set vote_num = vote_num - :num where id = :id and vote_num >= :min";
+  static final String INCREASE_RS_EVENT_VOTE_NUM =
+      "update rs_event set vote_num = vote_num + :num where id = :id";
+  static final String INSERT_VOTE =
+      "insert into vote (id, local_date_time, num, user_id, rs_event_id) "
+          + "values (:id, :localDateTime, :num, :userId, :rsEventId)";
+  static final String SELECT_USER_VOTE_NUM = "select vote_num from user where id = :id";
+  static final String SELECT_RANKED =
+      "select id, event_name, keyword, vote_num, rank from rs_event where rank > 0 "
+          + "order by rank asc, id asc";
+
+  final DatabaseClient databaseClient;
+  final TransactionalOperator transactionalOperator;
+  final ConnectionPool connectionPool;
+  final RsEventRanking rsEventRanking;
+  final VoteBudgetLedger voteBudgetLedger;
+  final EntityManagerFactory entityManagerFactory;
+  final RsMetrics rsMetrics;
+  private final Object idLock = new Object();
+  private int nextId;
+  private int idLimit;
+
+  public ReactiveRsService(
+      DatabaseClient databaseClient,
+      TransactionalOperator transactionalOperator,
+      ConnectionPool connectionPool,
+      RsEventRanking rsEventRanking,
+      VoteBudgetLedger voteBudgetLedger,
+      EntityManagerFactory entityManagerFactory,
+      RsMetrics rsMetrics) {
+    this.databaseClient = databaseClient;
+    this.transactionalOperator = transactionalOperator;
+    this.connectionPool = connectionPool;
+    this.rsEventRanking = rsEventRanking;
+    this.voteBudgetLedger = voteBudgetLedger;
+    this.entityManagerFactory = entityManagerFactory;
+    this.rsMetrics = rsMetrics;
+  }
+
+  /**
+   * Reserves the vote in the {@link VoteBudgetLedger} like {@link RsService#vote} does, so
+   * votes buffered by write-behind or the journal count against the same budget, then commits
+   * the reservation once the transaction did, or refunds it.
+   */
+  public Mono<Void> vote(Vote vote, int rsEventId) {
+    return reserve(vote)
+        .then(
+            Mono.defer(
+                () ->
+                    nextVoteId()
+                        .flatMap(
+                            id -> transactionalOperator.transactional(write(vote, rsEventId, id)))
+                        .doOnSuccess(ignored -> voted(vote, rsEventId))
+                        .doOnError(e -> refund(vote))
+                        .doOnCancel(() -> refund(vote))))
+        .doOnError(
+            RequestNotValidException.class, e -> rsMetrics.voteRejected(e.getMessage()));
+  }
+
+  /** Reads an unknown budget over R2DBC, so the ledger never blocks this thread on JDBC. */
+  private Mono<Void> reserve(Vote vote) {
+    int userId = vote.getUserId();
+    Mono<Void> load =
+        voteBudgetLedger.isLoaded(userId)
+            ? Mono.empty()
+            : databaseClient
+                .execute(SELECT_USER_VOTE_NUM)
+                .bind("id", userId)
+                .map(row -> row.get(0, Number.class).intValue())
+                .one()
+                .doOnNext(voteNum -> voteBudgetLedger.load(userId, voteNum))
+                .then();
+    return load.then(
+        Mono.defer(
+            () ->
+                voteBudgetLedger.isLoaded(userId)
+                        && voteBudgetLedger.reserve(userId, vote.getVoteNum())
+                    ? Mono.<Void>empty()
+                    : Mono.error(new RequestNotValidException(INVALID_VOTE_NUM))));
+  }
+
+  private void refund(Vote vote) {
+    voteBudgetLedger.refund(vote.getUserId(), vote.getVoteNum());
+  }
+
+  private Mono<Void> write(Vote vote, int rsEventId, int id) {
+    int num = vote.getVoteNum();
+    Mono<Void> decreaseUserVoteNum =
+        update(
+            databaseClient
+                .execute(DECREASE_USER_VOTE_NUM)
+                .bind("num", num)
+                .bind("min", num)
+                .bind("id", vote.getUserId()),
+            INVALID_VOTE_NUM);
+    Mono<Void> increaseRsEventVoteNum =
+        update(
+            databaseClient
+                .execute(INCREASE_RS_EVENT_VOTE_NUM)
+                .bind("num", num)
+                .bind("id", rsEventId),
+            INVALID_RS_EVENT);
+    return decreaseUserVoteNum
+        .then(increaseRsEventVoteNum)
+        .then(insertVote(id, vote, rsEventId));
+  }
+
+  public Flux<RsEvent> list(Integer start, Integer end) {
+    if (start != null && end != null && (start < 1 || end < start)) {
+      return Flux.error(new RequestNotValidException("invalid index"));
+    }
+    Flux<RsEventSummary> rsEvents =
+        select(SELECT_RANKED)
+            .collectList()
+            .flatMapMany(
+                ranked -> {
+                  List<RsEventSummary> pending = new ArrayList<>();
+                  RankedSlots slots = new RankedSlots(ranked, pending::add);
+                  return select(RsEventExporter.SELECT_UNRANKED)
+                      .concatMapIterable(
+                          summary -> {
+                            slots.unranked(summary);
+                            return drain(pending);
+                          })
+                      .concatWith(
+                          Flux.defer(
+                              () -> {
+                                slots.rest();
+                                return Flux.fromIterable(drain(pending));
+                              }));
+                });
+    if (start != null && end != null) {
+      rsEvents = rsEvents.skip(start - 1).take(end - start + 1);
+    }
+    return rsEvents.map(RsEventPager::toRsEvent);
+  }
+
+  private static Mono<Void> update(DatabaseClient.GenericExecuteSpec update, String rejection) {
+    return update
+        .fetch()
+        .rowsUpdated()
+        .flatMap(
+            updated ->
+                updated == 0
+                    ? Mono.error(new RequestNotValidException(rejection))
+                    : Mono.empty());
+  }
+
+  /**
+   * Hands out ids the way Hibernate's pooled-lo optimizer does for {@link Ids#POOLED}: each value
+   * taken from the sequence starts a block of {@link Ids#BLOCK_SIZE} ids used from memory. Two
+   * votes that find the block used up at once both take a new one; the rest of the block the
+   * slower one replaces is skipped, never reused.
+   */
+  private Mono<Integer> nextVoteId() {
+    synchronized (idLock) {
+      if (nextId < idLimit) {
+        return Mono.just(nextId++);
+      }
+    }
+    return nextIdBlock()
+        .map(
+            first -> {
+              synchronized (idLock) {
+                nextId = first + 1;
+                idLimit = first + Ids.BLOCK_SIZE;
+              }
+              return first;
+            });
+  }
+
+  /**
+   * Takes the next block from a real sequence on H2, or from the one-row table on MySQL under a
+   * row lock. Like Hibernate, the table is updated in its own short transaction so votes do not
+   * queue behind the lock.
+   */
+  private Mono<Integer> nextIdBlock() {
+    if ("H2".equalsIgnoreCase(connectionPool.getMetadata().getName())) {
+      return databaseClient
+          .execute("select next value for " + Ids.SEQUENCE)
+          .map(row -> row.get(0, Number.class).intValue())
+          .one();
+    }
+    return transactionalOperator.transactional(
+        databaseClient
+            .execute("select next_val from " + Ids.SEQUENCE + " for update")
+            .map(row -> row.get(0, Number.class).intValue())
+            .one()
+            .flatMap(
+                first ->
+                    databaseClient
+                        .execute("update " + Ids.SEQUENCE + " set next_val = next_val + :size")
+                        .bind("size", Ids.BLOCK_SIZE)
+                        .then()
+                        .thenReturn(first)));
+  }
+
+  private Mono<Void> insertVote(int id, Vote vote, int rsEventId) {
+    DatabaseClient.GenericExecuteSpec insert =
+        databaseClient
+            .execute(INSERT_VOTE)
+            .bind("id", id)
+            .bind("num", vote.getVoteNum())
+            .bind("userId", vote.getUserId())
+            .bind("rsEventId", rsEventId);
+    insert =
+        vote.getTime() == null
+            ? insert.bindNull("localDateTime", LocalDateTime.class)
+            : insert.bind("localDateTime", vote.getTime());
+    return insert.then();
+  }
+
+  private void voted(Vote vote, int rsEventId) {
+    rsEventRanking.addVotes(rsEventId, vote.getVoteNum());
+    voteBudgetLedger.commit(vote.getUserId(), vote.getVoteNum());
+    Cache cache = entityManagerFactory.getCache();
+    cache.evict(RsEventDto.class, rsEventId);
+    cache.evict(UserDto.class, vote.getUserId());
+  }
+
+  private Flux<RsEventSummary> select(String sql) {
+    return databaseClient.execute(sql).map(ReactiveRsService::toSummary).all();
+  }
+
+  private static RsEventSummary toSummary(Row row) {
+    return RsEventDto.builder()
+        .id(row.get("id", Integer.class))
+        .eventName(row.get("event_name", String.class))
+        .keyword(row.get("keyword", String.class))
+        .voteNum(row.get("vote_num", Integer.class))
+        .rank(row.get("rank", Integer.class))
+        .build();
+  }
+
+  private static List<RsEventSummary> drain(List<RsEventSummary> pending) {
+    List<RsEventSummary> drained = new ArrayList<>(pending);
+    pending.clear();
+    return drained;
+  }
+}
@@ -0,0 +1,46 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Number of stored events, kept up to date by {@link RsEventRankingListener} once inserts and
+ * deletes commit, so bounding a rank does not need a count query. It is corrected from the
+ * database periodically in case a change bypassed the entity listeners.
+ */
+@Slf4j
+@Component
+public class RsEventCounter {
+  final RsEventRepository rsEventRepository;
+
+  private final AtomicInteger count = new AtomicInteger();
+
+  public RsEventCounter(RsEventRepository rsEventRepository) {
+    this.rsEventRepository = rsEventRepository;
+  }
+
+  public int get() {
+    return count.get();
+  }
+
+  public void added() {
+    AfterCommit.run(count::incrementAndGet);
+  }
+
+  public void removed() {
+    AfterCommit.run(count::decrementAndGet);
+  }
+
+  @Scheduled(fixedDelayString = "${rs.event.count.reconcile-interval:60000}")
+  public void reconcile() {
+    int observed = count.get();
+    int stored = Math.toIntExact(rsEventRepository.count());
+    if (observed != stored && count.compareAndSet(observed, stored)) {
+      log.warn("corrected rs event count from {} to {}", observed, stored);
+    }
+  }
+}
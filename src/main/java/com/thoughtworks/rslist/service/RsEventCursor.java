@@ -0,0 +1,48 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position in the ranking: the next position to return, how many bought events were
+ * already returned, and the key (voteNum, id) of the last returned event without a bought rank.
+ */
+@Value
+class RsEventCursor {
+  static final RsEventCursor FIRST = new RsEventCursor(1, 0, false, 0, 0);
+
+  int position;
+  int rankedIndex;
+  boolean hasKey;
+  int voteNum;
+  int id;
+
+  String encode() {
+    String raw = position + ":" + rankedIndex + ":" + (hasKey ? voteNum + ":" + id : "-");
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static RsEventCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] parts = raw.split(":");
+      int position = Integer.parseInt(parts[0]);
+      int rankedIndex = Integer.parseInt(parts[1]);
+      if (position < 1 || rankedIndex < 0) {
+        throw new RequestNotValidException("invalid cursor");
+      }
+      if (parts.length == 3 && "-".equals(parts[2])) {
+        return new RsEventCursor(position, rankedIndex, false, 0, 0);
+      }
+      return new RsEventCursor(
+          position, rankedIndex, true, Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+    } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+      throw new RequestNotValidException("invalid cursor");
+    }
+  }
+}
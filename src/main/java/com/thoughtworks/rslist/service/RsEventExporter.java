@@ -0,0 +1,76 @@
+package com.thoughtworks.rslist.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.RsEventSummary;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Writes the whole ranking as a JSON array while reading it. Unranked events come from a
+ * forward-only cursor fetched {@code rs.list.export.fetch-size} rows at a time, and bought events
+ * are slotted in on the fly, so memory use does not grow with the number of events.
+ */
+@Service
+public class RsEventExporter {
+  static final String SELECT_UNRANKED =
+      "select id, event_name, keyword, vote_num, rank from rs_event where rank = 0 "
+          + "order by vote_num desc, id asc";
+
+  final RsEventRepository rsEventRepository;
+  final ObjectMapper objectMapper;
+  final JdbcTemplate jdbcTemplate;
+
+  public RsEventExporter(
+      RsEventRepository rsEventRepository,
+      ObjectMapper objectMapper,
+      DataSource dataSource,
+      @Value("${rs.list.export.fetch-size:1000}") int fetchSize) {
+    this.rsEventRepository = rsEventRepository;
+    this.objectMapper = objectMapper;
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.jdbcTemplate.setFetchSize(fetchSize);
+  }
+
+  public void export(OutputStream outputStream) throws IOException {
+    List<RsEventSummary> ranked = rsEventRepository.findAllByRankGreaterThanOrderByRankAscIdAsc(0);
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+      generator.writeStartArray();
+      RankedSlots slots = new RankedSlots(ranked, summary -> write(generator, summary));
+      jdbcTemplate.query(
+          SELECT_UNRANKED,
+          (RowCallbackHandler)
+              row ->
+                  slots.unranked(
+                      RsEventDto.builder()
+                          .id(row.getInt("id"))
+                          .eventName(row.getString("event_name"))
+                          .keyword(row.getString("keyword"))
+                          .voteNum(row.getInt("vote_num"))
+                          .rank(row.getInt("rank"))
+                          .build()));
+      slots.rest();
+      generator.writeEndArray();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static void write(JsonGenerator generator, RsEventSummary summary) {
+    try {
+      generator.writeObject(RsEventPager.toRsEvent(summary));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
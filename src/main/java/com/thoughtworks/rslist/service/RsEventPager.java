@@ -0,0 +1,201 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.RsEventPage;
+import com.thoughtworks.rslist.dto.RsEventSummary;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads windows of the ranking. By default they are cut from {@link RsEventRanking}; with
+ * {@code rs.list.source=database} only the requested window is loaded, using keyset queries for
+ * cursors so that deep pages cost the same as the first one.
+ */
+@Service
+public class RsEventPager {
+  final RsEventRepository rsEventRepository;
+  final RsEventRanking rsEventRanking;
+  final boolean fromDatabase;
+  final int maxPageSize;
+
+  public RsEventPager(
+      RsEventRepository rsEventRepository,
+      RsEventRanking rsEventRanking,
+      @Value("${rs.list.source:ranking}") String source,
+      @Value("${rs.list.max-page-size:100}") int maxPageSize) {
+    this.rsEventRepository = rsEventRepository;
+    this.rsEventRanking = rsEventRanking;
+    this.fromDatabase = "database".equals(source);
+    this.maxPageSize = maxPageSize;
+  }
+
+  public long version() {
+    return rsEventRanking.version();
+  }
+
+  public List<RsEvent> getAll() {
+    if (!fromDatabase) {
+      return rsEventRanking.list();
+    }
+    Merge merge =
+        new Merge(
+            rsEventRepository.findAllByRankGreaterThanOrderByRankAscIdAsc(0),
+            0,
+            1,
+            rsEventRepository.findAllByRankOrderByVoteNumDescIdAsc(0).iterator());
+    merge.fill(Integer.MAX_VALUE);
+    return merge.rsEvents;
+  }
+
+  public List<RsEvent> getBetween(int start, int end) {
+    if (start < 1 || end < start) {
+      throw new RequestNotValidException("invalid index");
+    }
+    if (!fromDatabase) {
+      List<RsEvent> rsEvents = rsEventRanking.list();
+      return rsEvents.subList(
+          Math.min(start - 1, rsEvents.size()), Math.min(end, rsEvents.size()));
+    }
+    List<RsEventSummary> ranked = rsEventRepository.findAllByRankGreaterThanOrderByRankAscIdAsc(0);
+    long unrankedCount = rsEventRepository.countByRank(0);
+    int rankedIndex = 0;
+    int skipped = 0;
+    int position = 1;
+    while (position < start) {
+      RsEventSummary next = rankedIndex < ranked.size() ? ranked.get(rankedIndex) : null;
+      if (next != null && (next.getRank() <= position || skipped >= unrankedCount)) {
+        rankedIndex++;
+        position++;
+      } else if (skipped < unrankedCount) {
+        int step = next == null ? start - position : Math.min(next.getRank(), start) - position;
+        step = (int) Math.min(step, unrankedCount - skipped);
+        skipped += step;
+        position += step;
+      } else {
+        break;
+      }
+    }
+    int size = end - start + 1;
+    Merge merge =
+        new Merge(
+            ranked,
+            rankedIndex,
+            position,
+            rsEventRepository.findUnrankedWindow(skipped, size).iterator());
+    merge.fill(size);
+    return merge.rsEvents;
+  }
+
+  /** Always served from {@link RsEventRanking}, whatever {@code rs.list.source} says. */
+  public List<RsEvent> getTop(int k) {
+    if (k < 1 || k > maxPageSize) {
+      throw new RequestNotValidException("invalid k");
+    }
+    return rsEventRanking.top(k);
+  }
+
+  public Optional<RsEvent> get(int index) {
+    if (!fromDatabase) {
+      return rsEventRanking.get(index);
+    }
+    if (index < 1) {
+      return Optional.empty();
+    }
+    return getBetween(index, index).stream().findFirst();
+  }
+
+  public RsEventPage getPage(String cursor, int size) {
+    if (size < 1 || size > maxPageSize) {
+      throw new RequestNotValidException("invalid page size");
+    }
+    RsEventCursor from = cursor == null ? RsEventCursor.FIRST : RsEventCursor.decode(cursor);
+    if (!fromDatabase) {
+      List<RsEvent> rsEvents = rsEventRanking.list();
+      int begin = Math.min(from.getPosition() - 1, rsEvents.size());
+      int stop = Math.min(begin + size, rsEvents.size());
+      String nextCursor =
+          stop < rsEvents.size() ? new RsEventCursor(stop + 1, 0, false, 0, 0).encode() : null;
+      return new RsEventPage(new ArrayList<>(rsEvents.subList(begin, stop)), nextCursor);
+    }
+    List<RsEventSummary> ranked = rsEventRepository.findAllByRankGreaterThanOrderByRankAscIdAsc(0);
+    List<RsEventSummary> unranked =
+        from.isHasKey()
+            ? rsEventRepository.findUnrankedAfter(
+                from.getVoteNum(), from.getId(), PageRequest.of(0, size))
+            : rsEventRepository.findUnrankedWindow(0, size);
+    Merge merge =
+        new Merge(ranked, from.getRankedIndex(), from.getPosition(), unranked.iterator());
+    merge.fill(size);
+    boolean hasMore =
+        merge.rankedIndex < ranked.size() || merge.unranked.hasNext() || unranked.size() == size;
+    if (!hasMore) {
+      return new RsEventPage(merge.rsEvents, null);
+    }
+    RsEventSummary last = merge.lastUnranked;
+    RsEventCursor next =
+        last == null
+            ? new RsEventCursor(
+                merge.position,
+                merge.rankedIndex,
+                from.isHasKey(),
+                from.getVoteNum(),
+                from.getId())
+            : new RsEventCursor(
+                merge.position, merge.rankedIndex, true, last.getVoteNum(), last.getId());
+    return new RsEventPage(merge.rsEvents, next.encode());
+  }
+
+  static RsEvent toRsEvent(RsEventSummary summary) {
+    return RsEvent.builder()
+        .eventName(summary.getEventName())
+        .keyword(summary.getKeyword())
+        .userId(summary.getId())
+        .voteNum(summary.getVoteNum())
+        .rank(summary.getRank())
+        .build();
+  }
+
+  private static class Merge {
+    final List<RsEventSummary> ranked;
+    final Iterator<RsEventSummary> unranked;
+    final List<RsEvent> rsEvents = new ArrayList<>();
+    int rankedIndex;
+    int position;
+    RsEventSummary lastUnranked;
+
+    Merge(
+        List<RsEventSummary> ranked,
+        int rankedIndex,
+        int position,
+        Iterator<RsEventSummary> unranked) {
+      this.ranked = ranked;
+      this.rankedIndex = rankedIndex;
+      this.position = position;
+      this.unranked = unranked;
+    }
+
+    void fill(int limit) {
+      while (rsEvents.size() < limit) {
+        RsEventSummary next = rankedIndex < ranked.size() ? ranked.get(rankedIndex) : null;
+        if (next != null && (next.getRank() <= position || !unranked.hasNext())) {
+          rankedIndex++;
+        } else if (unranked.hasNext()) {
+          next = unranked.next();
+          lastUnranked = next;
+        } else {
+          break;
+        }
+        rsEvents.add(toRsEvent(next));
+        position++;
+      }
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.RsEventSummary;
+import lombok.Value;
+import lombok.With;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory ranking of all events. Events that bought a rank are placed on that rank, the rest
+ * are ordered by vote number (then by id). Changes are applied after the surrounding transaction
+ * commits, so readers never see rolled back votes or trades.
+ */
+@Component
+public class RsEventRanking {
+  private static final Comparator<Entry> VOTE_ORDER =
+      Comparator.comparingInt(Entry::getVoteNum).reversed().thenComparingInt(Entry::getId);
+  private static final Comparator<Entry> RANK_ORDER =
+      Comparator.comparingInt(Entry::getRank).thenComparingInt(Entry::getId);
+
+  private final Map<Integer, Entry> entries = new HashMap<>();
+  private final NavigableSet<Entry> byVoteNum = new TreeSet<>(VOTE_ORDER);
+  private final NavigableSet<Entry> byRank = new TreeSet<>(RANK_ORDER);
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private volatile List<RsEvent> snapshot = Collections.emptyList();
+  // Starts from the boot time so that versions handed out before a restart are never reused.
+  private final AtomicLong version = new AtomicLong(System.currentTimeMillis() << 20);
+
+  public void reload(Collection<? extends RsEventSummary> summaries) {
+    lock.writeLock().lock();
+    try {
+      entries.clear();
+      byVoteNum.clear();
+      byRank.clear();
+      summaries.forEach(item -> put(Entry.of(item)));
+      changed();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void save(RsEventDto rsEventDto) {
+    Entry entry = Entry.of(rsEventDto);
+    AfterCommit.run(() -> update(entry));
+  }
+
+  public void addVotes(int id, int voteNum) {
+    AfterCommit.run(() -> increase(id, voteNum));
+  }
+
+  public void remove(int id) {
+    AfterCommit.run(() -> delete(id));
+  }
+
+  public List<RsEvent> list() {
+    List<RsEvent> current = snapshot;
+    if (current != null) {
+      return current;
+    }
+    lock.readLock().lock();
+    try {
+      current = Collections.unmodifiableList(merge(entries.size()));
+      snapshot = current;
+      return current;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * The first {@code k} events. When a change has invalidated the full list, they are read off
+   * the heads of the two ordered sets instead, so the cost depends on {@code k} only.
+   */
+  public List<RsEvent> top(int k) {
+    List<RsEvent> current = snapshot;
+    if (current != null) {
+      return current.subList(0, Math.min(k, current.size()));
+    }
+    lock.readLock().lock();
+    try {
+      return Collections.unmodifiableList(merge(Math.min(k, entries.size())));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public Optional<RsEvent> get(int index) {
+    List<RsEvent> rsEvents = list();
+    if (index < 1 || index > rsEvents.size()) {
+      return Optional.empty();
+    }
+    return Optional.of(rsEvents.get(index - 1));
+  }
+
+  public boolean contains(int id) {
+    lock.readLock().lock();
+    try {
+      return entries.containsKey(id);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int size() {
+    return list().size();
+  }
+
+  /** Returns a copy of all entries, for {@link RsEventRankingSnapshots}. */
+  List<Entry> entries() {
+    lock.readLock().lock();
+    try {
+      return new ArrayList<>(entries.values());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** Grows with every applied change, so an unchanged version means an unchanged ranking. */
+  public long version() {
+    return version.get();
+  }
+
+  private void changed() {
+    snapshot = null;
+    version.incrementAndGet();
+  }
+
+  private void update(Entry entry) {
+    lock.writeLock().lock();
+    try {
+      unlink(entries.get(entry.getId()));
+      put(entry);
+      changed();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void increase(int id, int voteNum) {
+    lock.writeLock().lock();
+    try {
+      Entry entry = entries.get(id);
+      if (entry == null) {
+        return;
+      }
+      unlink(entry);
+      put(entry.withVoteNum(entry.getVoteNum() + voteNum));
+      changed();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void delete(int id) {
+    lock.writeLock().lock();
+    try {
+      unlink(entries.get(id));
+      changed();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void put(Entry entry) {
+    entries.put(entry.getId(), entry);
+    if (entry.getRank() > 0) {
+      byRank.add(entry);
+    } else {
+      byVoteNum.add(entry);
+    }
+  }
+
+  private void unlink(Entry entry) {
+    if (entry == null) {
+      return;
+    }
+    entries.remove(entry.getId());
+    byRank.remove(entry);
+    byVoteNum.remove(entry);
+  }
+
+  private List<RsEvent> merge(int limit) {
+    List<RsEvent> rsEvents = new ArrayList<>(limit);
+    Iterator<Entry> ranked = byRank.iterator();
+    Iterator<Entry> voted = byVoteNum.iterator();
+    Entry nextRanked = ranked.hasNext() ? ranked.next() : null;
+    while (rsEvents.size() < limit && (nextRanked != null || voted.hasNext())) {
+      int position = rsEvents.size() + 1;
+      if (nextRanked != null && (nextRanked.getRank() <= position || !voted.hasNext())) {
+        rsEvents.add(nextRanked.toRsEvent());
+        nextRanked = ranked.hasNext() ? ranked.next() : null;
+      } else {
+        rsEvents.add(voted.next().toRsEvent());
+      }
+    }
+    return rsEvents;
+  }
+
+  @Value
+  static class Entry {
+    int id;
+    String eventName;
+    String keyword;
+    @With int voteNum;
+    int rank;
+
+    static Entry of(RsEventSummary summary) {
+      return new Entry(
+          summary.getId(),
+          summary.getEventName(),
+          summary.getKeyword(),
+          summary.getVoteNum(),
+          summary.getRank());
+    }
+
+    RsEvent toRsEvent() {
+      return RsEvent.builder()
+          .eventName(eventName)
+          .keyword(keyword)
+          .userId(id)
+          .voteNum(voteNum)
+          .rank(rank)
+          .build();
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+public class RsEventRankingListener {
+  @Autowired RsEventRanking rsEventRanking;
+  @Autowired @Lazy RsEventCounter rsEventCounter;
+
+  @PostPersist
+  public void onPersist(RsEventDto rsEventDto) {
+    rsEventRanking.save(rsEventDto);
+    rsEventCounter.added();
+  }
+
+  @PostUpdate
+  public void onSave(RsEventDto rsEventDto) {
+    rsEventRanking.save(rsEventDto);
+  }
+
+  @PostRemove
+  public void onRemove(RsEventDto rsEventDto) {
+    rsEventRanking.remove(rsEventDto.getId());
+    rsEventCounter.removed();
+  }
+}
@@ -0,0 +1,58 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RsEventRankingLoader implements ApplicationRunner {
+  final RsEventRepository rsEventRepository;
+  final TradeRepository tradeRepository;
+  final RsEventRanking rsEventRanking;
+  final RankAuction rankAuction;
+  final RsEventCounter rsEventCounter;
+  final RsEventRankingSnapshots rsEventRankingSnapshots;
+
+  private volatile String source;
+  private volatile long loadMillis;
+
+  public RsEventRankingLoader(
+      RsEventRepository rsEventRepository,
+      TradeRepository tradeRepository,
+      RsEventRanking rsEventRanking,
+      RankAuction rankAuction,
+      RsEventCounter rsEventCounter,
+      RsEventRankingSnapshots rsEventRankingSnapshots) {
+    this.rsEventRepository = rsEventRepository;
+    this.tradeRepository = tradeRepository;
+    this.rsEventRanking = rsEventRanking;
+    this.rankAuction = rankAuction;
+    this.rsEventCounter = rsEventCounter;
+    this.rsEventRankingSnapshots = rsEventRankingSnapshots;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    long started = System.currentTimeMillis();
+    String loadedFrom = "snapshot";
+    if (!rsEventRankingSnapshots.restore()) {
+      rsEventRanking.reload(rsEventRepository.findAllProjectedBy());
+      loadedFrom = "database";
+    }
+    rankAuction.reload(tradeRepository.findAll());
+    rsEventCounter.reconcile();
+    loadMillis = System.currentTimeMillis() - started;
+    source = loadedFrom;
+  }
+
+  /** Where the ranking was loaded from, or null while it is still loading. */
+  public String getSource() {
+    return source;
+  }
+
+  public long getLoadMillis() {
+    return loadMillis;
+  }
+}
@@ -0,0 +1,173 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.RsEventSummary;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Periodic binary snapshots of {@link RsEventRanking} ({@code rs.ranking.snapshot.enabled}), so
+ * that a restart does not have to read every event. Each snapshot records the highest vote and
+ * event ids seen when it was taken; on restore only events created or voted on after those ids
+ * (minus {@code id-margin}, to cover transactions that committed out of id order) and the bought
+ * events are read again. When the result does not add up to the number of stored events, because
+ * events were deleted since, the caller falls back to a full load.
+ */
+@Slf4j
+@Component
+public class RsEventRankingSnapshots {
+  private static final int MAGIC = 0x52534e50;
+  private static final int FORMAT = 1;
+  private static final int IN_CHUNK = 1000;
+  private static final String SNAPSHOT = "ranking.snapshot";
+
+  final RsEventRanking rsEventRanking;
+  final RsEventRepository rsEventRepository;
+  final VoteRepository voteRepository;
+  final boolean enabled;
+  final Path directory;
+  final int idMargin;
+
+  public RsEventRankingSnapshots(
+      RsEventRanking rsEventRanking,
+      RsEventRepository rsEventRepository,
+      VoteRepository voteRepository,
+      @Value("${rs.ranking.snapshot.enabled:false}") boolean enabled,
+      @Value("${rs.ranking.snapshot.directory:ranking-snapshot}") String directory,
+      @Value("${rs.ranking.snapshot.id-margin:10000}") int idMargin) {
+    this.rsEventRanking = rsEventRanking;
+    this.rsEventRepository = rsEventRepository;
+    this.voteRepository = voteRepository;
+    this.enabled = enabled;
+    this.directory = Paths.get(directory);
+    this.idMargin = idMargin;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Scheduled(
+      initialDelayString = "${rs.ranking.snapshot.interval:300000}",
+      fixedDelayString = "${rs.ranking.snapshot.interval:300000}")
+  public void write() throws IOException {
+    if (!enabled) {
+      return;
+    }
+    int voteWatermark = voteRepository.findMaxId();
+    List<RsEventRanking.Entry> entries = rsEventRanking.entries();
+    int eventWatermark = entries.stream().mapToInt(RsEventRanking.Entry::getId).max().orElse(0);
+    Files.createDirectories(directory);
+    Path temporary = directory.resolve(SNAPSHOT + ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT);
+      out.writeInt(voteWatermark);
+      out.writeInt(eventWatermark);
+      out.writeInt(entries.size());
+      for (RsEventRanking.Entry entry : entries) {
+        out.writeInt(entry.getId());
+        writeString(out, entry.getEventName());
+        writeString(out, entry.getKeyword());
+        out.writeInt(entry.getVoteNum());
+        out.writeInt(entry.getRank());
+      }
+    }
+    Files.move(
+        temporary,
+        directory.resolve(SNAPSHOT),
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    log.debug("wrote ranking snapshot of {} events", entries.size());
+  }
+
+  @PreDestroy
+  void stop() throws IOException {
+    write();
+  }
+
+  /** Loads the ranking from the latest snapshot; returns whether it could be used. */
+  public boolean restore() {
+    Path snapshot = directory.resolve(SNAPSHOT);
+    if (!enabled || !Files.exists(snapshot)) {
+      return false;
+    }
+    Map<Integer, RsEventSummary> summaries = new LinkedHashMap<>();
+    int voteWatermark;
+    int eventWatermark;
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+      if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+        log.warn("ignoring ranking snapshot {} of unknown format", snapshot);
+        return false;
+      }
+      voteWatermark = in.readInt();
+      eventWatermark = in.readInt();
+      for (int i = in.readInt(); i > 0; i--) {
+        RsEventDto summary =
+            RsEventDto.builder()
+                .id(in.readInt())
+                .eventName(readString(in))
+                .keyword(readString(in))
+                .voteNum(in.readInt())
+                .rank(in.readInt())
+                .build();
+        summaries.put(summary.getId(), summary);
+      }
+    } catch (IOException e) {
+      log.warn("failed to read ranking snapshot {}", snapshot, e);
+      return false;
+    }
+    put(summaries, rsEventRepository.findAllProjectedByIdGreaterThan(eventWatermark - idMargin));
+    List<Integer> voted = voteRepository.findRsEventIdsVotedAfter(voteWatermark - idMargin);
+    for (int from = 0; from < voted.size(); from += IN_CHUNK) {
+      List<Integer> ids = voted.subList(from, Math.min(from + IN_CHUNK, voted.size()));
+      put(summaries, rsEventRepository.findAllProjectedByIdIn(ids));
+    }
+    summaries.values().removeIf(summary -> summary.getRank() > 0);
+    put(summaries, rsEventRepository.findAllByRankGreaterThanOrderByRankAscIdAsc(0));
+    long stored = rsEventRepository.count();
+    if (summaries.size() != stored) {
+      log.info("ranking snapshot has {} events, database {}; reloading", summaries.size(), stored);
+      return false;
+    }
+    rsEventRanking.reload(summaries.values());
+    return true;
+  }
+
+  private static void put(
+      Map<Integer, RsEventSummary> summaries, Collection<RsEventSummary> changed) {
+    changed.forEach(summary -> summaries.put(summary.getId(), summary));
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+}
@@ -2,87 +2,133 @@ package com.thoughtworks.rslist.service;
 
 import com.thoughtworks.rslist.domain.Trade;
 import com.thoughtworks.rslist.domain.Vote;
-import com.thoughtworks.rslist.dto.RsEventDto;
-import com.thoughtworks.rslist.dto.TradeDto;
-import com.thoughtworks.rslist.dto.UserDto;
-import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.domain.VoteResult;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.metrics.RsMetrics;
 import com.thoughtworks.rslist.repository.RsEventRepository;
-import com.thoughtworks.rslist.repository.TradeRepository;
-import com.thoughtworks.rslist.repository.UserRepository;
-import com.thoughtworks.rslist.repository.VoteRepository;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class RsService {
+  private static final String INVALID_RS_EVENT = "invalid rs event";
+  private static final String INVALID_VOTE_NUM = "invalid user or vote num";
+
   final RsEventRepository rsEventRepository;
-  final UserRepository userRepository;
-  final VoteRepository voteRepository;
-  final TradeRepository tradeRepository;
+  final VoteWriter voteWriter;
+  final VoteWriteBehind voteWriteBehind;
+  final VoteJournal voteJournal;
+  final VoteBudgetLedger voteBudgetLedger;
+  final RsEventRanking rsEventRanking;
+  final RankAuction rankAuction;
+  final RsEventCounter rsEventCounter;
+  final RsMetrics rsMetrics;
 
-  public RsService(RsEventRepository rsEventRepository, UserRepository userRepository, VoteRepository voteRepository,
-                   TradeRepository tradeRepository) {
+  public RsService(RsEventRepository rsEventRepository, VoteWriter voteWriter, VoteWriteBehind voteWriteBehind,
+                   VoteJournal voteJournal, VoteBudgetLedger voteBudgetLedger, RsEventRanking rsEventRanking,
+                   RankAuction rankAuction, RsEventCounter rsEventCounter, RsMetrics rsMetrics) {
     this.rsEventRepository = rsEventRepository;
-    this.userRepository = userRepository;
-    this.voteRepository = voteRepository;
-    this.tradeRepository = tradeRepository;
+    this.voteWriter = voteWriter;
+    this.voteWriteBehind = voteWriteBehind;
+    this.voteJournal = voteJournal;
+    this.voteBudgetLedger = voteBudgetLedger;
+    this.rsEventRanking = rsEventRanking;
+    this.rankAuction = rankAuction;
+    this.rsEventCounter = rsEventCounter;
+    this.rsMetrics = rsMetrics;
   }
 
   public void vote(Vote vote, int rsEventId) {
-    Optional<RsEventDto> rsEventDto = rsEventRepository.findById(rsEventId);
-    Optional<UserDto> userDto = userRepository.findById(vote.getUserId());
-    if (!rsEventDto.isPresent()
-        || !userDto.isPresent()
-        || vote.getVoteNum() > userDto.get().getVoteNum()) {
-      throw new RuntimeException();
+    if (!voteBudgetLedger.reserve(vote.getUserId(), vote.getVoteNum())) {
+      rsMetrics.voteRejected(INVALID_VOTE_NUM);
+      throw new RequestNotValidException(INVALID_VOTE_NUM);
+    }
+    try {
+      if (voteJournal.isEnabled()) {
+        voteJournal.append(vote, rsEventId);
+        return;
+      }
+      if (voteWriteBehind.isEnabled()) {
+        voteWriteBehind.accept(vote, rsEventId);
+        return;
+      }
+      voteWriter.vote(vote, rsEventId);
+    } catch (RuntimeException e) {
+      voteBudgetLedger.refund(vote.getUserId(), vote.getVoteNum());
+      if (e instanceof RequestNotValidException) {
+        rsMetrics.voteRejected(e.getMessage());
+      }
+      throw e;
     }
-    VoteDto voteDto =
-        VoteDto.builder()
-            .localDateTime(vote.getTime())
-            .num(vote.getVoteNum())
-            .rsEvent(rsEventDto.get())
-            .user(userDto.get())
-            .build();
-    voteRepository.save(voteDto);
-    UserDto user = userDto.get();
-    user.setVoteNum(user.getVoteNum() - vote.getVoteNum());
-    userRepository.save(user);
-    RsEventDto rsEvent = rsEventDto.get();
-    rsEvent.setVoteNum(rsEvent.getVoteNum() + vote.getVoteNum());
-    rsEventRepository.save(rsEvent);
+    voteBudgetLedger.commit(vote.getUserId(), vote.getVoteNum());
+  }
+
+  public List<VoteResult> voteBatch(List<Vote> votes) {
+    voteBudgetLedger.preload(votes.stream().map(Vote::getUserId).collect(Collectors.toSet()));
+    Set<Integer> rsEventIds =
+        new HashSet<>(
+            rsEventRepository.findExistingIds(
+                votes.stream().map(Vote::getRsEventId).collect(Collectors.toSet())));
+    List<VoteResult> results = new ArrayList<>(votes.size());
+    List<Vote> accepted = new ArrayList<>();
+    Map<Vote, Integer> indexes = new IdentityHashMap<>();
+    for (int i = 0; i < votes.size(); i++) {
+      Vote vote = votes.get(i);
+      if (!rsEventIds.contains(vote.getRsEventId())) {
+        rsMetrics.voteRejected(INVALID_RS_EVENT);
+        results.add(VoteResult.failure(i, INVALID_RS_EVENT));
+      } else if (!voteBudgetLedger.reserve(vote.getUserId(), vote.getVoteNum())) {
+        rsMetrics.voteRejected(INVALID_VOTE_NUM);
+        results.add(VoteResult.failure(i, INVALID_VOTE_NUM));
+      } else {
+        accepted.add(vote);
+        indexes.put(vote, i);
+        results.add(VoteResult.success(i));
+      }
+    }
+    if (accepted.isEmpty()) {
+      return results;
+    }
+    List<Vote> rejected;
+    try {
+      rejected = voteWriter.write(accepted);
+    } catch (RuntimeException e) {
+      accepted.forEach(vote -> voteBudgetLedger.refund(vote.getUserId(), vote.getVoteNum()));
+      throw e;
+    }
+    for (Vote vote : rejected) {
+      voteBudgetLedger.refund(vote.getUserId(), vote.getVoteNum());
+      rsMetrics.voteRejected(INVALID_VOTE_NUM);
+      results.set(indexes.get(vote), VoteResult.failure(indexes.get(vote), INVALID_VOTE_NUM));
+      indexes.remove(vote);
+    }
+    for (Vote vote : indexes.keySet()) {
+      voteBudgetLedger.commit(vote.getUserId(), vote.getVoteNum());
+    }
+    return results;
   }
 
   public ResponseEntity buy(Trade trade, int id) {
-    Optional<RsEventDto> rsEventDto= rsEventRepository.findById(id);
-    Optional<TradeDto> oldtradeDto = tradeRepository.findByRank(trade.getRank());
-    int rsEventDtoLength = Math.toIntExact(rsEventRepository.count());
-    if(!rsEventDto.isPresent() ||
-        (oldtradeDto.isPresent() && trade.getAmount() < oldtradeDto.get().getAmount()) ||
-        trade.getRank() > rsEventDtoLength){
-      return ResponseEntity.badRequest().build();
+    String rejection = null;
+    if (!rsEventRanking.contains(id)) {
+      rejection = INVALID_RS_EVENT;
+    } else if (trade.getRank() < 1 || trade.getRank() > rsEventCounter.get()) {
+      rejection = "invalid rank";
+    } else if (!rankAuction.bid(id, trade.getRank(), trade.getAmount())) {
+      rejection = "amount too low";
     }
-    if(!oldtradeDto.isPresent()){
-          TradeDto newtradeDto = TradeDto.builder().amount(trade.getAmount())
-            .rank(trade.getRank())
-            .rsEvent(rsEventDto.get())
-            .build();
-          tradeRepository.save(newtradeDto);
-    }else if(oldtradeDto.get().getRsEvent().getId() == id){
-      oldtradeDto.get().setAmount(trade.getAmount());
-    }else if(trade.getAmount() > oldtradeDto.get().getAmount()){
-      tradeRepository.delete(oldtradeDto.get());
-      rsEventRepository.deleteAllByRank(trade.getRank());
-      TradeDto newtradeDto = TradeDto.builder().amount(trade.getAmount())
-              .rank(trade.getRank())
-              .rsEvent(rsEventDto.get())
-              .build();
-      tradeRepository.save(newtradeDto);
+    if (rejection != null) {
+      rsMetrics.bidRejected(rejection);
+      return ResponseEntity.badRequest().build();
     }
-    RsEventDto rsEvent = rsEventDto.get();
-    rsEvent.setRank(trade.getRank());
-    rsEventRepository.save(rsEvent);
     return ResponseEntity.ok().build();
   }
 }
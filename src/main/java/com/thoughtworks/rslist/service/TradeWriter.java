@@ -0,0 +1,44 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.TradeDto;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Component
+public class TradeWriter {
+  final RsEventRepository rsEventRepository;
+  final TradeRepository tradeRepository;
+
+  public TradeWriter(RsEventRepository rsEventRepository, TradeRepository tradeRepository) {
+    this.rsEventRepository = rsEventRepository;
+    this.tradeRepository = tradeRepository;
+  }
+
+  /** Persists a bid that {@link RankAuction} already accepted as the new holder of the rank. */
+  @Transactional
+  public void write(int rsEventId, int rank, int amount) {
+    RsEventDto rsEvent =
+        rsEventRepository
+            .findById(rsEventId)
+            .orElseThrow(() -> new RequestNotValidException("invalid rs event"));
+    Optional<TradeDto> oldTradeDto = tradeRepository.findByRank(rank);
+    if (!oldTradeDto.isPresent()) {
+      tradeRepository.save(TradeDto.builder().amount(amount).rank(rank).rsEvent(rsEvent).build());
+    } else if (oldTradeDto.get().getRsEvent().getId() == rsEventId) {
+      oldTradeDto.get().setAmount(amount);
+      tradeRepository.save(oldTradeDto.get());
+    } else {
+      tradeRepository.delete(oldTradeDto.get());
+      rsEventRepository.deleteAllByRank(rank);
+      tradeRepository.save(TradeDto.builder().amount(amount).rank(rank).rsEvent(rsEvent).build());
+    }
+    rsEvent.setRank(rank);
+    rsEventRepository.save(rsEvent);
+  }
+}
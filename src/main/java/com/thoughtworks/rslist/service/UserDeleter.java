@@ -0,0 +1,70 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.TradeDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Deletes a user with what {@code CascadeType.REMOVE} would delete, the user's events with their
+ * votes and trades and the user's own votes, as a handful of bulk statements in foreign key order
+ * instead of loading and removing every row. Bulk statements skip the entity listeners, so the
+ * in-memory ranking, counter and auction are updated here, after the transaction commits.
+ */
+@Component
+public class UserDeleter {
+  final UserRepository userRepository;
+  final RsEventRepository rsEventRepository;
+  final VoteRepository voteRepository;
+  final TradeRepository tradeRepository;
+  final RsEventRanking rsEventRanking;
+  final RsEventCounter rsEventCounter;
+  final RankAuction rankAuction;
+  final VoteBudgetLedger voteBudgetLedger;
+
+  public UserDeleter(
+      UserRepository userRepository,
+      RsEventRepository rsEventRepository,
+      VoteRepository voteRepository,
+      TradeRepository tradeRepository,
+      RsEventRanking rsEventRanking,
+      RsEventCounter rsEventCounter,
+      RankAuction rankAuction,
+      VoteBudgetLedger voteBudgetLedger) {
+    this.userRepository = userRepository;
+    this.rsEventRepository = rsEventRepository;
+    this.voteRepository = voteRepository;
+    this.tradeRepository = tradeRepository;
+    this.rsEventRanking = rsEventRanking;
+    this.rsEventCounter = rsEventCounter;
+    this.rankAuction = rankAuction;
+    this.voteBudgetLedger = voteBudgetLedger;
+  }
+
+  @Transactional
+  public void delete(int userId) {
+    List<Integer> rsEventIds = rsEventRepository.findIdsByUserId(userId);
+    List<TradeDto> tradeDtos = tradeRepository.findAllByRsEventUserId(userId);
+    voteRepository.deleteAllOnRsEventsOfUser(userId);
+    voteRepository.deleteAllOfUser(userId);
+    tradeRepository.deleteAllOnRsEventsOfUser(userId);
+    rsEventRepository.deleteAllInBulkByUserId(userId);
+    if (userRepository.deleteInBulkById(userId) == 0) {
+      throw new EmptyResultDataAccessException(
+          String.format("No %s entity with id %s exists!", "UserDto", userId), 1);
+    }
+    tradeDtos.forEach(rankAuction::removed);
+    rsEventIds.forEach(
+        id -> {
+          rsEventRanking.remove(id);
+          rsEventCounter.removed();
+        });
+    AfterCommit.run(() -> voteBudgetLedger.evict(userId));
+  }
+}
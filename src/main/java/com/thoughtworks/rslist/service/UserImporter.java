@@ -0,0 +1,189 @@
+package com.thoughtworks.rslist.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.thoughtworks.rslist.domain.User;
+import com.thoughtworks.rslist.domain.UserImportReport;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Registers users read from a stream, either one JSON array or one JSON object per line. Each
+ * user is checked against the constraints on {@link User}; valid ones are saved every
+ * {@code rs.user.import.chunk-size} users, each chunk in its own transaction so the inserts go
+ * out as JDBC batches. The persistence context is cleared after every chunk, since under
+ * open-session-in-view it outlives the transactions and would otherwise keep every imported user.
+ * A chunk the database rejects is saved again one user at a time, so only the offending users
+ * are reported.
+ */
+@Slf4j
+@Component
+public class UserImporter {
+  final UserRepository userRepository;
+  final Validator validator;
+  final TransactionTemplate transactionTemplate;
+  final EntityManager entityManager;
+  final ObjectReader userReader;
+  final int chunkSize;
+
+  public UserImporter(
+      UserRepository userRepository,
+      Validator validator,
+      ObjectMapper objectMapper,
+      PlatformTransactionManager transactionManager,
+      EntityManager entityManager,
+      @Value("${rs.user.import.chunk-size:1000}") int chunkSize) {
+    this.userRepository = userRepository;
+    this.validator = validator;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.entityManager = entityManager;
+    this.userReader = objectMapper.readerFor(User.class);
+    this.chunkSize = chunkSize;
+  }
+
+  public static UserDto toUserDto(User user) {
+    UserDto userDto = new UserDto();
+    userDto.setGender(user.getGender());
+    userDto.setPhone(user.getPhone());
+    userDto.setVoteNum(user.getVoteNum());
+    userDto.setAge(user.getAge());
+    userDto.setEmail(user.getEmail());
+    userDto.setUserName(user.getUserName());
+    return userDto;
+  }
+
+  /** Imports newline-delimited JSON; blank lines are skipped. */
+  public UserImportReport importLines(InputStream inputStream) throws IOException {
+    Chunks chunks = new Chunks();
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    int line = 0;
+    for (String json = reader.readLine(); json != null; json = reader.readLine()) {
+      line++;
+      if (json.trim().isEmpty()) {
+        continue;
+      }
+      try {
+        chunks.add(line, userReader.readValue(json));
+      } catch (JsonProcessingException e) {
+        chunks.reject(line, e.getOriginalMessage());
+      }
+    }
+    return chunks.finish();
+  }
+
+  /**
+   * Imports a JSON array read element by element. A user that does not map onto {@link User} is
+   * reported and skipped; malformed JSON ends the import after the users read before it.
+   */
+  public UserImportReport importArray(InputStream inputStream) throws IOException {
+    Chunks chunks = new Chunks();
+    int position = 0;
+    try (MappingIterator<User> users = userReader.readValues(inputStream)) {
+      while (users.hasNextValue()) {
+        position++;
+        try {
+          chunks.add(position, users.nextValue());
+        } catch (JsonParseException e) {
+          chunks.reject(position, e.getOriginalMessage());
+          break;
+        } catch (JsonProcessingException e) {
+          chunks.reject(position, e.getOriginalMessage());
+        }
+      }
+    } catch (JsonParseException e) {
+      chunks.reject(position + 1, e.getOriginalMessage());
+    }
+    return chunks.finish();
+  }
+
+  private class Chunks {
+    final List<UserImportReport.Error> errors = new ArrayList<>();
+    final List<Integer> lines = new ArrayList<>(chunkSize);
+    final List<UserDto> users = new ArrayList<>(chunkSize);
+    int imported;
+
+    void add(int line, User user) {
+      Set<ConstraintViolation<User>> violations = validator.validate(user);
+      if (!violations.isEmpty()) {
+        reject(line, describe(violations));
+        return;
+      }
+      lines.add(line);
+      users.add(toUserDto(user));
+      if (users.size() == chunkSize) {
+        flush();
+      }
+    }
+
+    void reject(int line, String error) {
+      errors.add(new UserImportReport.Error(line, error));
+    }
+
+    UserImportReport finish() {
+      flush();
+      return new UserImportReport(imported, errors);
+    }
+
+    private void flush() {
+      if (users.isEmpty()) {
+        return;
+      }
+      try {
+        save(users);
+        imported += users.size();
+      } catch (DataAccessException e) {
+        log.warn("failed to import {} users, retrying one by one", users.size(), e);
+        for (int i = 0; i < users.size(); i++) {
+          UserDto user = users.get(i);
+          user.setId(0);
+          try {
+            save(Collections.singletonList(user));
+            imported++;
+          } catch (DataAccessException ex) {
+            reject(lines.get(i), ex.getMostSpecificCause().getMessage());
+          }
+        }
+        errors.sort((a, b) -> Integer.compare(a.getLine(), b.getLine()));
+      }
+      lines.clear();
+      users.clear();
+    }
+  }
+
+  /** Saves users in a transaction of their own, flushed on commit, then detaches them. */
+  private void save(List<UserDto> users) {
+    transactionTemplate.execute(status -> userRepository.saveAll(users));
+    entityManager.clear();
+  }
+
+  private static String describe(Set<ConstraintViolation<User>> violations) {
+    return violations.stream()
+        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+        .sorted()
+        .collect(Collectors.joining(", "));
+  }
+}
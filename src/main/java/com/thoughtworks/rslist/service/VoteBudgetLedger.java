@@ -0,0 +1,139 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.UserRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Remaining vote budget per user. Votes reserve from it before they are written and either commit
+ * or refund the reservation afterwards, so parallel votes from one user can never spend more than
+ * the budget. Budgets are loaded lazily and refreshed from the database while no vote of the user
+ * is in flight.
+ */
+@Component
+public class VoteBudgetLedger {
+  final UserRepository userRepository;
+
+  private final Map<Integer, Budget> budgets = new ConcurrentHashMap<>();
+
+  public VoteBudgetLedger(UserRepository userRepository) {
+    this.userRepository = userRepository;
+  }
+
+  public boolean reserve(int userId, int voteNum) {
+    Budget budget =
+        budgets.computeIfAbsent(
+            userId, id -> userRepository.findById(id).map(Budget::of).orElse(null));
+    return budget != null && budget.reserve(voteNum);
+  }
+
+  public boolean isLoaded(int userId) {
+    return budgets.containsKey(userId);
+  }
+
+  /** Seeds the budget of a user that is not known yet, for callers that read it themselves. */
+  public void load(int userId, int voteNum) {
+    budgets.putIfAbsent(userId, new Budget(voteNum));
+  }
+
+  /** Loads the budgets of all given users that are not known yet with a single query. */
+  public void preload(Collection<Integer> userIds) {
+    List<Integer> missing =
+        userIds.stream().filter(id -> !budgets.containsKey(id)).collect(Collectors.toList());
+    if (missing.isEmpty()) {
+      return;
+    }
+    userRepository
+        .findAllById(missing)
+        .forEach(item -> budgets.putIfAbsent(item.getId(), Budget.of(item)));
+  }
+
+  public void commit(int userId, int voteNum) {
+    Budget budget = budgets.get(userId);
+    if (budget != null) {
+      budget.pending.addAndGet(-voteNum);
+    }
+  }
+
+  public void refund(int userId, int voteNum) {
+    Budget budget = budgets.get(userId);
+    if (budget != null) {
+      budget.available.addAndGet(voteNum);
+      budget.pending.addAndGet(-voteNum);
+    }
+  }
+
+  public void evict(int userId) {
+    budgets.remove(userId);
+  }
+
+  @Scheduled(fixedDelayString = "${rs.vote.budget.reconcile-interval:60000}")
+  public void reconcile() {
+    List<Integer> userIds = new ArrayList<>();
+    List<Integer> observed = new ArrayList<>();
+    budgets.forEach(
+        (userId, budget) -> {
+          int available = budget.available.get();
+          if (budget.pending.get() == 0) {
+            userIds.add(userId);
+            observed.add(available);
+          }
+        });
+    if (userIds.isEmpty()) {
+      return;
+    }
+    Map<Integer, Integer> voteNums = new HashMap<>();
+    userRepository
+        .findAllById(userIds)
+        .forEach(item -> voteNums.put(item.getId(), item.getVoteNum()));
+    for (int i = 0; i < userIds.size(); i++) {
+      int userId = userIds.get(i);
+      Integer voteNum = voteNums.get(userId);
+      if (voteNum == null) {
+        budgets.remove(userId);
+        continue;
+      }
+      Budget budget = budgets.get(userId);
+      if (budget != null) {
+        budget.available.compareAndSet(observed.get(i), voteNum);
+      }
+    }
+  }
+
+  private static class Budget {
+    final AtomicInteger available;
+    final AtomicInteger pending = new AtomicInteger();
+
+    Budget(int available) {
+      this.available = new AtomicInteger(available);
+    }
+
+    static Budget of(UserDto userDto) {
+      return new Budget(userDto.getVoteNum());
+    }
+
+    boolean reserve(int voteNum) {
+      pending.addAndGet(voteNum);
+      while (true) {
+        int current = available.get();
+        if (voteNum > current) {
+          pending.addAndGet(-voteNum);
+          return false;
+        }
+        if (available.compareAndSet(current, current - voteNum)) {
+          return true;
+        }
+      }
+    }
+  }
+}
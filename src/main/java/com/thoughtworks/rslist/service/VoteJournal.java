@@ -0,0 +1,364 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Optional durable journal for votes ({@code rs.vote.journal.enabled}). A vote whose budget was
+ * reserved in the {@link VoteBudgetLedger} is appended as a fixed-size record to a memory-mapped
+ * segment and acknowledged once the segment is forced to disk; concurrent appends share one
+ * force. The {@code user} and {@code rs_event} counters and the {@code vote} rows are written
+ * from the journal by {@link VoteWriter#write} every {@code apply-interval} milliseconds.
+ *
+ * <p>The applied position is stored in the database in the same transaction as the votes, and
+ * fully applied segments are deleted. On startup every record after the stored position is
+ * applied before votes are accepted, so no record is written twice or lost.
+ */
+@Slf4j
+@Component
+public class VoteJournal {
+  static final int RECORD_SIZE = 24;
+  private static final int CHECKSUM_OFFSET = 20;
+  private static final long NO_TIME = Long.MIN_VALUE;
+  private static final String SEGMENT_SUFFIX = ".journal";
+
+  final VoteWriter voteWriter;
+  final VoteBudgetLedger voteBudgetLedger;
+  final RsEventRanking rsEventRanking;
+  final boolean enabled;
+  final Path directory;
+  final int segmentRecords;
+  final long applyInterval;
+  final int maxBatchSize;
+
+  private final NavigableMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+  private final Object syncLock = new Object();
+  private final Object applyLock = new Object();
+  private MappedByteBuffer current;
+  private long currentBase;
+  private volatile long written;
+  private volatile long synced;
+  private long applied;
+  private long recovered;
+  private ScheduledExecutorService applier;
+
+  public VoteJournal(
+      VoteWriter voteWriter,
+      VoteBudgetLedger voteBudgetLedger,
+      RsEventRanking rsEventRanking,
+      @Value("${rs.vote.journal.enabled:false}") boolean enabled,
+      @Value("${rs.vote.journal.directory:vote-journal}") String directory,
+      @Value("${rs.vote.journal.segment-records:1048576}") int segmentRecords,
+      @Value("${rs.vote.journal.apply-interval:200}") long applyInterval,
+      @Value("${rs.vote.journal.max-batch-size:500}") int maxBatchSize) {
+    this.voteWriter = voteWriter;
+    this.voteBudgetLedger = voteBudgetLedger;
+    this.rsEventRanking = rsEventRanking;
+    this.enabled = enabled;
+    this.directory = Paths.get(directory);
+    this.segmentRecords = segmentRecords;
+    this.applyInterval = applyInterval;
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  @PostConstruct
+  void start() throws IOException {
+    if (!enabled) {
+      return;
+    }
+    open();
+    if (recovered > applied) {
+      log.info("replaying {} journaled votes", recovered - applied);
+      apply();
+    }
+    applier =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "vote-journal");
+              thread.setDaemon(true);
+              return thread;
+            });
+    applier.scheduleWithFixedDelay(
+        this::apply, applyInterval, applyInterval, TimeUnit.MILLISECONDS);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void append(Vote vote, int rsEventId) {
+    if (!rsEventRanking.contains(rsEventId)) {
+      throw new RequestNotValidException("invalid rs event");
+    }
+    ByteBuffer record = encode(vote, rsEventId);
+    long position;
+    synchronized (this) {
+      if (written - currentBase == segmentRecords) {
+        current.force();
+        currentBase += segmentRecords;
+        current = map(currentBase);
+        segments.put(currentBase, current);
+      }
+      position = written;
+      ByteBuffer target = current.duplicate();
+      target.position(offset(position));
+      target.put(record);
+      written = position + 1;
+    }
+    sync(position + 1);
+  }
+
+  /** Writes every durable record not yet applied, in batches of {@code max-batch-size}. */
+  public void apply() {
+    synchronized (applyLock) {
+      for (List<Vote> batch = read(); !batch.isEmpty(); batch = read()) {
+        write(batch, applied, applied >= recovered);
+        applied += batch.size();
+        release();
+      }
+    }
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    if (!enabled) {
+      return;
+    }
+    applier.shutdown();
+    applier.awaitTermination(applyInterval * 10, TimeUnit.MILLISECONDS);
+    apply();
+  }
+
+  /**
+   * Makes every record before {@code position} durable. Callers that arrive while another one
+   * forces the segment wait for it and usually find their record already covered.
+   */
+  private void sync(long position) {
+    if (synced >= position) {
+      return;
+    }
+    synchronized (syncLock) {
+      if (synced >= position) {
+        return;
+      }
+      long target;
+      MappedByteBuffer buffer;
+      synchronized (this) {
+        target = written;
+        buffer = current;
+      }
+      buffer.force();
+      synced = target;
+    }
+  }
+
+  private void open() throws IOException {
+    Files.createDirectories(directory);
+    applied = voteWriter.journalPosition();
+    List<Long> bases;
+    try (Stream<Path> files = Files.list(directory)) {
+      bases =
+          files
+              .map(file -> file.getFileName().toString())
+              .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+              .map(name -> name.substring(0, name.length() - SEGMENT_SUFFIX.length()))
+              .map(Long::parseLong)
+              .sorted()
+              .collect(Collectors.toList());
+    }
+    for (long base : bases) {
+      if (base + segmentRecords <= applied && base != bases.get(bases.size() - 1)) {
+        Files.delete(segment(base));
+      } else {
+        segments.put(base, map(base));
+      }
+    }
+    if (segments.isEmpty()) {
+      long base = applied - applied % segmentRecords;
+      segments.put(base, map(base));
+    }
+    // Segments are only deleted once applied, so anything before the first one is in the database.
+    applied = Math.max(applied, segments.firstKey());
+    Map.Entry<Long, MappedByteBuffer> last = segments.lastEntry();
+    currentBase = last.getKey();
+    current = last.getValue();
+    long position = currentBase;
+    while (position < currentBase + segmentRecords && decode(current, offset(position)) != null) {
+      position++;
+    }
+    written = Math.max(position, applied);
+    synced = written;
+    recovered = written;
+  }
+
+  private List<Vote> read() {
+    long end = Math.min(synced, applied + maxBatchSize);
+    if (applied < recovered) {
+      end = Math.min(end, recovered);
+    }
+    List<Vote> batch = new ArrayList<>();
+    for (long position = applied; position < end; position++) {
+      Map.Entry<Long, MappedByteBuffer> segment = segments.floorEntry(position);
+      Vote vote = decode(segment.getValue(), (int) (position - segment.getKey()) * RECORD_SIZE);
+      if (vote == null) {
+        log.error("journal record {} is corrupt, stopping replay", position);
+        break;
+      }
+      batch.add(vote);
+    }
+    return batch;
+  }
+
+  private void write(List<Vote> batch, long position, boolean reserved) {
+    try {
+      settle(batch, voteWriter.write(batch, position + batch.size()), reserved);
+    } catch (RuntimeException e) {
+      log.warn("failed to apply {} journaled votes, retrying one by one", batch.size(), e);
+      for (Vote vote : batch) {
+        position++;
+        try {
+          List<Vote> single = Collections.singletonList(vote);
+          settle(single, voteWriter.write(single, position), reserved);
+        } catch (RuntimeException ex) {
+          log.error("dropping journaled vote {}", vote, ex);
+          if (reserved) {
+            voteBudgetLedger.refund(vote.getUserId(), vote.getVoteNum());
+          }
+          skip(position);
+        }
+      }
+    }
+  }
+
+  /** Records a dropped vote as applied; if that fails too, a later write moves past it. */
+  private void skip(long position) {
+    try {
+      voteWriter.advanceJournal(position);
+    } catch (RuntimeException e) {
+      log.warn("failed to record journal position {}", position, e);
+    }
+  }
+
+  private void settle(List<Vote> written, List<Vote> rejected, boolean reserved) {
+    Set<Vote> dropped = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Vote vote : rejected) {
+      log.warn("dropping journaled vote {} over the stored budget", vote);
+      dropped.add(vote);
+    }
+    if (!reserved) {
+      return;
+    }
+    for (Vote vote : written) {
+      if (dropped.contains(vote)) {
+        voteBudgetLedger.refund(vote.getUserId(), vote.getVoteNum());
+      } else {
+        voteBudgetLedger.commit(vote.getUserId(), vote.getVoteNum());
+      }
+    }
+  }
+
+  private void release() {
+    try {
+      while (segments.size() > 1 && segments.firstKey() + segmentRecords <= applied) {
+        Files.delete(segment(segments.pollFirstEntry().getKey()));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private MappedByteBuffer map(long base) {
+    try (FileChannel channel =
+        FileChannel.open(
+            segment(base),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * RECORD_SIZE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Path segment(long base) {
+    return directory.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+  }
+
+  private int offset(long position) {
+    return (int) (position - currentBase) * RECORD_SIZE;
+  }
+
+  private static ByteBuffer encode(Vote vote, int rsEventId) {
+    ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    record
+        .putInt(vote.getUserId())
+        .putInt(rsEventId)
+        .putInt(vote.getVoteNum())
+        .putLong(
+            vote.getTime() == null
+                ? NO_TIME
+                : vote.getTime().toInstant(ZoneOffset.UTC).toEpochMilli())
+        .putInt(checksum(record.array()));
+    record.flip();
+    return record;
+  }
+
+  private static Vote decode(MappedByteBuffer buffer, int offset) {
+    byte[] record = new byte[RECORD_SIZE];
+    ByteBuffer source = buffer.duplicate();
+    source.position(offset);
+    source.get(record);
+    ByteBuffer fields = ByteBuffer.wrap(record);
+    if (fields.getInt(CHECKSUM_OFFSET) != checksum(record)) {
+      return null;
+    }
+    long time = fields.getLong(12);
+    return Vote.builder()
+        .userId(fields.getInt(0))
+        .rsEventId(fields.getInt(4))
+        .voteNum(fields.getInt(8))
+        .time(
+            time == NO_TIME
+                ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneOffset.UTC))
+        .build();
+  }
+
+  private static int checksum(byte[] record) {
+    CRC32 crc = new CRC32();
+    crc.update(record, 0, CHECKSUM_OFFSET);
+    return (int) crc.getValue();
+  }
+}
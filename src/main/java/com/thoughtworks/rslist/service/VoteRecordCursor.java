@@ -0,0 +1,44 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque position in a vote history: the key (localDateTime, id) of the last returned vote. Votes
+ * without a time come first, ordered by id, so for them only the id is kept.
+ */
+@Value
+class VoteRecordCursor {
+  static final VoteRecordCursor FIRST = new VoteRecordCursor(null, 0);
+
+  LocalDateTime time;
+  int id;
+
+  String encode() {
+    String raw = id + ":" + (time == null ? "-" : time.toString());
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static VoteRecordCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] parts = raw.split(":", 2);
+      int id = Integer.parseInt(parts[0]);
+      if (id < 0) {
+        throw new RequestNotValidException("invalid cursor");
+      }
+      return new VoteRecordCursor("-".equals(parts[1]) ? null : LocalDateTime.parse(parts[1]), id);
+    } catch (IllegalArgumentException
+        | ArrayIndexOutOfBoundsException
+        | DateTimeParseException e) {
+      throw new RequestNotValidException("invalid cursor");
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.domain.VoteRecordPage;
+import com.thoughtworks.rslist.dto.VoteRecord;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the votes of a user on an event in time order. Cursors continue after the key of the
+ * last returned vote, which the (user_id, rs_event_id, local_date_time, id) index serves as a
+ * range scan, so every page costs the same as the first one.
+ */
+@Service
+public class VoteRecordPager {
+  final VoteRepository voteRepository;
+  final int maxPageSize;
+
+  public VoteRecordPager(
+      VoteRepository voteRepository,
+      @Value("${rs.vote.record.max-page-size:100}") int maxPageSize) {
+    this.voteRepository = voteRepository;
+    this.maxPageSize = maxPageSize;
+  }
+
+  /** Offset paging as before cursors existed; kept for callers that still send a page index. */
+  @Transactional(readOnly = true)
+  public List<Vote> getPage(int userId, int rsEventId, int pageIndex, int size) {
+    checkSize(size);
+    if (pageIndex < 1) {
+      throw new RequestNotValidException("invalid page index");
+    }
+    return voteRepository.findVoteRecords(userId, rsEventId, PageRequest.of(pageIndex - 1, size));
+  }
+
+  @Transactional(readOnly = true)
+  public VoteRecordPage getPage(int userId, int rsEventId, String cursor, int size) {
+    checkSize(size);
+    VoteRecordCursor from =
+        cursor == null ? VoteRecordCursor.FIRST : VoteRecordCursor.decode(cursor);
+    List<VoteRecord> records = new ArrayList<>(size);
+    if (from.getTime() == null) {
+      records.addAll(
+          voteRepository.findVoteRecordsWithoutTimeAfter(
+              userId, rsEventId, from.getId(), PageRequest.of(0, size)));
+      if (records.size() < size) {
+        records.addAll(
+            voteRepository.findTimedVoteRecords(
+                userId, rsEventId, PageRequest.of(0, size - records.size())));
+      }
+    } else {
+      records.addAll(
+          voteRepository.findVoteRecordsAfter(
+              userId, rsEventId, from.getTime(), from.getId(), PageRequest.of(0, size)));
+    }
+    String nextCursor = null;
+    if (records.size() == size) {
+      VoteRecord last = records.get(records.size() - 1);
+      nextCursor = new VoteRecordCursor(last.getLocalDateTime(), last.getId()).encode();
+    }
+    return new VoteRecordPage(
+        records.stream().map(VoteRecordPager::toVote).collect(Collectors.toList()), nextCursor);
+  }
+
+  private void checkSize(int size) {
+    if (size < 1 || size > maxPageSize) {
+      throw new RequestNotValidException("invalid page size");
+    }
+  }
+
+  private static Vote toVote(VoteRecord record) {
+    return new Vote(
+        record.getUserId(), record.getRsEventId(), record.getLocalDateTime(), record.getNum());
+  }
+}
@@ -0,0 +1,164 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional write-behind mode for votes ({@code rs.vote.write-behind.enabled}). Votes whose
+ * budget was reserved in the {@link VoteBudgetLedger} are buffered and written by {@link
+ * VoteWriter#write} whenever the buffer reaches {@code max-batch-size} or every {@code
+ * flush-interval} milliseconds.
+ *
+ * <p>Buffered votes are only durable once flushed. On shutdown they are flushed when {@code
+ * flush-on-shutdown} is set, otherwise they are dropped.
+ */
+@Slf4j
+@Component
+public class VoteWriteBehind {
+  final VoteWriter voteWriter;
+  final VoteBudgetLedger voteBudgetLedger;
+  final RsEventRanking rsEventRanking;
+  final boolean enabled;
+  final long flushInterval;
+  final int maxBatchSize;
+  final boolean flushOnShutdown;
+
+  private final Queue<Vote> pending = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pendingCount = new AtomicInteger();
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+  private ScheduledExecutorService flusher;
+
+  public VoteWriteBehind(
+      VoteWriter voteWriter,
+      VoteBudgetLedger voteBudgetLedger,
+      RsEventRanking rsEventRanking,
+      @Value("${rs.vote.write-behind.enabled:false}") boolean enabled,
+      @Value("${rs.vote.write-behind.flush-interval:200}") long flushInterval,
+      @Value("${rs.vote.write-behind.max-batch-size:500}") int maxBatchSize,
+      @Value("${rs.vote.write-behind.flush-on-shutdown:true}") boolean flushOnShutdown) {
+    this.voteWriter = voteWriter;
+    this.voteBudgetLedger = voteBudgetLedger;
+    this.rsEventRanking = rsEventRanking;
+    this.enabled = enabled;
+    this.flushInterval = flushInterval;
+    this.maxBatchSize = maxBatchSize;
+    this.flushOnShutdown = flushOnShutdown;
+  }
+
+  @PostConstruct
+  void start() {
+    if (!enabled) {
+      return;
+    }
+    flusher =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "vote-write-behind");
+              thread.setDaemon(true);
+              return thread;
+            });
+    flusher.scheduleWithFixedDelay(
+        this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void accept(Vote vote, int rsEventId) {
+    if (!rsEventRanking.contains(rsEventId)) {
+      throw new RequestNotValidException("invalid rs event");
+    }
+    pending.add(
+        Vote.builder()
+            .userId(vote.getUserId())
+            .rsEventId(rsEventId)
+            .time(vote.getTime())
+            .voteNum(vote.getVoteNum())
+            .build());
+    if (pendingCount.incrementAndGet() >= maxBatchSize
+        && flusher != null
+        && !flusher.isShutdown()
+        && flushRequested.compareAndSet(false, true)) {
+      flusher.execute(this::flush);
+    }
+  }
+
+  public synchronized void flush() {
+    flushRequested.set(false);
+    for (List<Vote> batch = drain(); !batch.isEmpty(); batch = drain()) {
+      write(batch);
+    }
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    if (!enabled) {
+      return;
+    }
+    flusher.shutdown();
+    flusher.awaitTermination(flushInterval * 10, TimeUnit.MILLISECONDS);
+    if (flushOnShutdown) {
+      flush();
+    } else if (pendingCount.get() > 0) {
+      log.warn("dropping {} buffered votes on shutdown", pendingCount.get());
+    }
+  }
+
+  private List<Vote> drain() {
+    List<Vote> batch = new ArrayList<>();
+    Vote vote;
+    while (batch.size() < maxBatchSize && (vote = pending.poll()) != null) {
+      batch.add(vote);
+    }
+    pendingCount.addAndGet(-batch.size());
+    return batch;
+  }
+
+  private void write(List<Vote> batch) {
+    try {
+      settle(batch, voteWriter.write(batch));
+    } catch (RuntimeException e) {
+      log.warn("failed to write {} buffered votes, retrying one by one", batch.size(), e);
+      for (Vote vote : batch) {
+        try {
+          List<Vote> single = Collections.singletonList(vote);
+          settle(single, voteWriter.write(single));
+        } catch (RuntimeException ex) {
+          log.error("dropping buffered vote {}", vote, ex);
+          voteBudgetLedger.refund(vote.getUserId(), vote.getVoteNum());
+        }
+      }
+    }
+  }
+
+  private void settle(List<Vote> written, List<Vote> rejected) {
+    Set<Vote> refunded = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Vote vote : rejected) {
+      log.warn("dropping buffered vote {} over the stored budget", vote);
+      voteBudgetLedger.refund(vote.getUserId(), vote.getVoteNum());
+      refunded.add(vote);
+    }
+    written.stream()
+        .filter(vote -> !refunded.contains(vote))
+        .forEach(vote -> voteBudgetLedger.commit(vote.getUserId(), vote.getVoteNum()));
+  }
+}
@@ -0,0 +1,160 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.dto.VoteJournalDto;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteJournalRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Component
+public class VoteWriter {
+  static final String INCREASE_RS_EVENT_VOTE_NUM =
+      "update rs_event set vote_num = vote_num + ? where id = ?";
+  static final String DECREASE_USER_VOTE_NUM =
+      "update user set vote_num = vote_num - ? where id = ? and vote_num >= ?";
+  static final int JOURNAL_ID = 1;
+
+  final RsEventRepository rsEventRepository;
+  final UserRepository userRepository;
+  final VoteRepository voteRepository;
+  final VoteJournalRepository voteJournalRepository;
+  final JdbcTemplate jdbcTemplate;
+  final RsEventRanking rsEventRanking;
+  final EntityManagerFactory entityManagerFactory;
+
+  public VoteWriter(
+      RsEventRepository rsEventRepository,
+      UserRepository userRepository,
+      VoteRepository voteRepository,
+      VoteJournalRepository voteJournalRepository,
+      JdbcTemplate jdbcTemplate,
+      RsEventRanking rsEventRanking,
+      EntityManagerFactory entityManagerFactory) {
+    this.rsEventRepository = rsEventRepository;
+    this.userRepository = userRepository;
+    this.voteRepository = voteRepository;
+    this.voteJournalRepository = voteJournalRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.rsEventRanking = rsEventRanking;
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  @Transactional
+  public void vote(Vote vote, int rsEventId) {
+    if (userRepository.decreaseVoteNum(vote.getUserId(), vote.getVoteNum()) == 0) {
+      throw new RequestNotValidException("invalid user or vote num");
+    }
+    if (rsEventRepository.increaseVoteNum(rsEventId, vote.getVoteNum()) == 0) {
+      throw new RequestNotValidException("invalid rs event");
+    }
+    voteRepository.save(toVoteDto(vote, rsEventId));
+    rsEventRanking.addVotes(rsEventId, vote.getVoteNum());
+  }
+
+  /**
+   * Writes votes whose budget was reserved in the {@link VoteBudgetLedger}: the counters as one
+   * update per user and per event, the vote rows as insert batches. The ledger only knows about
+   * this process, so the user updates still refuse to go below zero; the votes of a user whose
+   * update is refused are not written and are returned for the caller to refund. The updates
+   * bypass Hibernate, so the touched users and events are evicted from the second-level cache
+   * once they commit.
+   */
+  @Transactional
+  public List<Vote> write(List<Vote> votes) {
+    Map<Integer, Integer> userVoteNums = sum(votes, false);
+    List<Object[]> userArgs = new ArrayList<>(userVoteNums.size());
+    userVoteNums.forEach((id, voteNum) -> userArgs.add(new Object[] {voteNum, id, voteNum}));
+    int[] updated = jdbcTemplate.batchUpdate(DECREASE_USER_VOTE_NUM, userArgs);
+    Set<Integer> overspent = new HashSet<>();
+    for (int i = 0; i < updated.length; i++) {
+      if (updated[i] == 0) {
+        overspent.add((Integer) userArgs.get(i)[1]);
+      }
+    }
+    List<Vote> rejected = new ArrayList<>();
+    List<Vote> accepted = new ArrayList<>(votes.size());
+    votes.forEach(vote -> (overspent.contains(vote.getUserId()) ? rejected : accepted).add(vote));
+    if (accepted.isEmpty()) {
+      return rejected;
+    }
+    userVoteNums.keySet().removeAll(overspent);
+    voteRepository.saveAll(
+        accepted.stream()
+            .map(vote -> toVoteDto(vote, vote.getRsEventId()))
+            .collect(Collectors.toList()));
+    Map<Integer, Integer> rsEventVoteNums = sum(accepted, true);
+    jdbcTemplate.batchUpdate(INCREASE_RS_EVENT_VOTE_NUM, toArgs(rsEventVoteNums));
+    rsEventVoteNums.forEach(rsEventRanking::addVotes);
+    Cache cache = entityManagerFactory.getCache();
+    AfterCommit.run(
+        () -> {
+          rsEventVoteNums.keySet().forEach(id -> cache.evict(RsEventDto.class, id));
+          userVoteNums.keySet().forEach(id -> cache.evict(UserDto.class, id));
+        });
+    return rejected;
+  }
+
+  /**
+   * Writes votes read from the {@link VoteJournal} like {@link #write(List)} and, in the same
+   * transaction, records {@code journalPosition} as applied, so a replay can skip them.
+   */
+  @Transactional
+  public List<Vote> write(List<Vote> votes, long journalPosition) {
+    advanceJournal(journalPosition);
+    return write(votes);
+  }
+
+  /** Records {@code journalPosition} as applied without writing votes. */
+  @Transactional
+  public void advanceJournal(long journalPosition) {
+    voteJournalRepository.save(new VoteJournalDto(JOURNAL_ID, journalPosition));
+  }
+
+  /** Returns the journal position up to which votes are written. */
+  @Transactional(readOnly = true)
+  public long journalPosition() {
+    return voteJournalRepository.findById(JOURNAL_ID).map(VoteJournalDto::getApplied).orElse(0L);
+  }
+
+  private static VoteDto toVoteDto(Vote vote, int rsEventId) {
+    return VoteDto.builder()
+        .localDateTime(vote.getTime())
+        .num(vote.getVoteNum())
+        .rsEvent(RsEventDto.builder().id(rsEventId).build())
+        .user(UserDto.builder().id(vote.getUserId()).build())
+        .build();
+  }
+
+  private static Map<Integer, Integer> sum(List<Vote> votes, boolean byRsEvent) {
+    Map<Integer, Integer> voteNums = new LinkedHashMap<>();
+    for (Vote vote : votes) {
+      int id = byRsEvent ? vote.getRsEventId() : vote.getUserId();
+      voteNums.merge(id, vote.getVoteNum(), Integer::sum);
+    }
+    return voteNums;
+  }
+
+  private static List<Object[]> toArgs(Map<Integer, Integer> voteNums) {
+    List<Object[]> args = new ArrayList<>(voteNums.size());
+    voteNums.forEach((id, voteNum) -> args.add(new Object[] {voteNum, id}));
+    return args;
+  }
+}
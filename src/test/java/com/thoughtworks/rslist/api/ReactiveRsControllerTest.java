@@ -0,0 +1,213 @@
+package com.thoughtworks.rslist.api;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import com.thoughtworks.rslist.service.ReactiveRsService;
+import com.thoughtworks.rslist.service.VoteBudgetLedger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(
+    properties = {
+      "rs.reactive.enabled=true",
+      "rs.reactive.url=r2dbc:h2:mem://sa@/rsSystem?options=DB_CLOSE_DELAY=-1;MODE=MySQL",
+      "spring.datasource.url=jdbc:h2:mem:rsSystem;DB_CLOSE_DELAY=-1;MODE=MySQL",
+      "spring.datasource.driver-class-name=org.h2.Driver",
+      "spring.datasource.username=sa",
+      "spring.datasource.password="
+    })
+@AutoConfigureMockMvc
+class ReactiveRsControllerTest {
+  static final int THREADS = 4;
+
+  @Autowired MockMvc mockMvc;
+  @Autowired ReactiveRsService reactiveRsService;
+  @Autowired UserRepository userRepository;
+  @Autowired RsEventRepository rsEventRepository;
+  @Autowired VoteRepository voteRepository;
+  @Autowired TradeRepository tradeRepository;
+  @Autowired VoteBudgetLedger voteBudgetLedger;
+  List<UserDto> users;
+  List<RsEventDto> rsEvents;
+
+  @BeforeEach
+  void setUp() {
+    voteRepository.deleteAll();
+    tradeRepository.deleteAll();
+    rsEventRepository.deleteAll();
+    userRepository.deleteAll();
+    users = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      users.add(
+          userRepository.save(
+              UserDto.builder()
+                  .userName("user" + i)
+                  .age(19)
+                  .email("a@b.com")
+                  .gender("female")
+                  .phone("18888888888")
+                  .voteNum(10)
+                  .build()));
+    }
+    rsEvents = new ArrayList<>();
+    for (int i = 1; i <= 3; i++) {
+      rsEvents.add(
+          rsEventRepository.save(
+              RsEventDto.builder()
+                  .eventName("热搜" + i)
+                  .keyword("hots")
+                  .voteNum(i)
+                  .rank(i == 1 ? 1 : 0)
+                  .user(users.get(0))
+                  .build()));
+    }
+  }
+
+  @Test
+  void shouldListRankedAndUnrankedEventsInRankingOrder() throws Exception {
+    perform(get("/reactive/rs/list"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(3)))
+        .andExpect(jsonPath("$[0].eventName", is("热搜1")))
+        .andExpect(jsonPath("$[1].eventName", is("热搜3")))
+        .andExpect(jsonPath("$[2].eventName", is("热搜2")));
+
+    perform(get("/reactive/rs/list?start=2&end=3"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(2)))
+        .andExpect(jsonPath("$[0].eventName", is("热搜3")))
+        .andExpect(jsonPath("$[1].eventName", is("热搜2")));
+  }
+
+  @Test
+  void shouldRejectInvalidIndex() throws Exception {
+    perform(get("/reactive/rs/list?start=0&end=2"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("invalid index")));
+  }
+
+  @Test
+  void shouldVote() throws Exception {
+    perform(vote(rsEvents.get(1).getId(), users.get(0).getId(), 3)).andExpect(status().isOk());
+
+    assertEquals(7, userRepository.findById(users.get(0).getId()).get().getVoteNum());
+    assertEquals(5, rsEventRepository.findById(rsEvents.get(1).getId()).get().getVoteNum());
+    assertEquals(1, voteRepository.count());
+  }
+
+  @Test
+  void shouldRejectVoteBeyondBudget() throws Exception {
+    perform(vote(rsEvents.get(1).getId(), users.get(0).getId(), 11))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("invalid user or vote num")));
+
+    assertEquals(10, userRepository.findById(users.get(0).getId()).get().getVoteNum());
+    assertEquals(0, voteRepository.count());
+  }
+
+  @Test
+  void shouldCountVotesStillInFlightElsewhereAgainstBudget() throws Exception {
+    int userId = users.get(0).getId();
+    assertTrue(voteBudgetLedger.reserve(userId, 8));
+
+    perform(vote(rsEvents.get(1).getId(), userId, 3))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("invalid user or vote num")));
+    perform(vote(rsEvents.get(1).getId(), userId, 2)).andExpect(status().isOk());
+
+    assertEquals(8, userRepository.findById(userId).get().getVoteNum());
+    assertFalse(voteBudgetLedger.reserve(userId, 1));
+    voteBudgetLedger.refund(userId, 8);
+  }
+
+  @Test
+  void shouldRollBackVoteForMissingRsEvent() throws Exception {
+    perform(vote(0, users.get(0).getId(), 3))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("invalid rs event")));
+
+    assertEquals(10, userRepository.findById(users.get(0).getId()).get().getVoteNum());
+    assertEquals(0, voteRepository.count());
+  }
+
+  @Test
+  void shouldServeConcurrentVotesWithFixedThreadPool() {
+    Scheduler scheduler = Schedulers.newParallel("vote", THREADS);
+    try {
+      Set<String> threads =
+          Flux.range(0, 100)
+              .flatMap(
+                  i ->
+                      reactiveRsService
+                          .vote(
+                              Vote.builder()
+                                  .userId(users.get(i % 10).getId())
+                                  .voteNum(1)
+                                  .time(LocalDateTime.now())
+                                  .build(),
+                              rsEvents.get(i % 2).getId())
+                          .subscribeOn(scheduler)
+                          .then(Mono.fromCallable(() -> Thread.currentThread().getName())))
+              .collect(Collectors.toSet())
+              .block(Duration.ofSeconds(30));
+
+      assertTrue(threads.size() <= THREADS, threads.toString());
+    } finally {
+      scheduler.dispose();
+    }
+
+    assertEquals(100, voteRepository.count());
+    users.forEach(
+        user -> assertEquals(0, userRepository.findById(user.getId()).get().getVoteNum()));
+    assertEquals(51, rsEventRepository.findById(rsEvents.get(0).getId()).get().getVoteNum());
+    assertEquals(52, rsEventRepository.findById(rsEvents.get(1).getId()).get().getVoteNum());
+  }
+
+  private RequestBuilder vote(int rsEventId, int userId, int voteNum) {
+    return post("/reactive/rs/vote/" + rsEventId)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"userId\":" + userId + ",\"voteNum\":" + voteNum + "}");
+  }
+
+  private ResultActions perform(RequestBuilder requestBuilder) throws Exception {
+    MvcResult mvcResult =
+        mockMvc.perform(requestBuilder).andExpect(request().asyncStarted()).andReturn();
+    return mockMvc.perform(asyncDispatch(mvcResult));
+  }
+}
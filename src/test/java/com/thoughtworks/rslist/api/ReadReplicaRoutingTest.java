@@ -0,0 +1,137 @@
+package com.thoughtworks.rslist.api;
+
+import com.thoughtworks.rslist.config.ReadReplicaConfiguration.ReplicaDataSource;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.servlet.http.Cookie;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:rsPrimary;DB_CLOSE_DELAY=-1;MODE=MySQL",
+      "spring.datasource.driver-class-name=org.h2.Driver",
+      "spring.datasource.username=sa",
+      "spring.datasource.password=",
+      "rs.datasource.replica.enabled=true",
+      "rs.datasource.replica.url=" + ReadReplicaRoutingTest.REPLICA_URL,
+      "rs.datasource.replica.username=sa",
+      "rs.datasource.replica.password=",
+      "rs.datasource.replica.read-after-write-window=60000"
+    })
+@AutoConfigureMockMvc
+class ReadReplicaRoutingTest {
+  static final String REPLICA_URL = "jdbc:h2:mem:rsReplica;DB_CLOSE_DELAY=-1;MODE=MySQL";
+
+  @Autowired MockMvc mockMvc;
+  @Autowired UserRepository userRepository;
+  @Autowired RsEventRepository rsEventRepository;
+  @Autowired VoteRepository voteRepository;
+  @Autowired TradeRepository tradeRepository;
+  @Autowired ReplicaDataSource dataSource;
+  JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+  UserDto userDto;
+  RsEventDto rsEventDto;
+
+  @BeforeEach
+  void setUp() {
+    voteRepository.deleteAll();
+    tradeRepository.deleteAll();
+    rsEventRepository.deleteAll();
+    userRepository.deleteAll();
+    userDto =
+        userRepository.save(
+            UserDto.builder()
+                .userName("idolice")
+                .age(19)
+                .email("a@b.com")
+                .gender("female")
+                .phone("18888888888")
+                .voteNum(10)
+                .build());
+    rsEventDto =
+        rsEventRepository.save(
+            RsEventDto.builder().user(userDto).eventName("event").keyword("keyword").build());
+    voteRepository.save(vote());
+    replicate();
+  }
+
+  @Test
+  public void shouldReadVoteRecordsFromReplica() throws Exception {
+    voteRepository.save(vote());
+
+    mockMvc.perform(voteRecord()).andExpect(jsonPath("$", hasSize(1)));
+
+    replicate();
+    mockMvc.perform(voteRecord()).andExpect(jsonPath("$", hasSize(2)));
+  }
+
+  @Test
+  public void shouldReadOwnWritesFromPrimaryWithinWindow() throws Exception {
+    Cookie primaryUntil =
+        mockMvc
+            .perform(
+                post("/rs/vote/{id}", rsEventDto.getId())
+                    .content(
+                        String.format(
+                            "{\"userId\":%d,\"time\":\"%s\",\"voteNum\":1}",
+                            userDto.getId(), LocalDateTime.now()))
+                    .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getCookie("rs-primary-until");
+    assertNotNull(primaryUntil);
+
+    mockMvc.perform(voteRecord().cookie(primaryUntil)).andExpect(jsonPath("$", hasSize(2)));
+    mockMvc.perform(voteRecord()).andExpect(jsonPath("$", hasSize(1)));
+  }
+
+  private MockHttpServletRequestBuilder voteRecord() {
+    return get("/voteRecord")
+        .param("userId", String.valueOf(userDto.getId()))
+        .param("rsEventId", String.valueOf(rsEventDto.getId()))
+        .param("pageIndex", "1");
+  }
+
+  private VoteDto vote() {
+    return VoteDto.builder()
+        .user(userDto)
+        .rsEvent(rsEventDto)
+        .localDateTime(LocalDateTime.now())
+        .num(1)
+        .build();
+  }
+
+  /** Copies the primary onto the replica, standing in for replication. */
+  private void replicate() {
+    List<String> script =
+        new JdbcTemplate(dataSource.getPrimary())
+            .queryForList("script nopasswords nosettings", String.class);
+    replica.execute("drop all objects");
+    script.stream().filter(statement -> !statement.startsWith("--")).forEach(replica::execute);
+  }
+}
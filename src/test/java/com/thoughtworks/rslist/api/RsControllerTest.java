@@ -11,26 +11,37 @@ import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.TradeRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
+import com.thoughtworks.rslist.service.VoteBudgetLedger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -42,6 +53,8 @@ class RsControllerTest {
   @Autowired RsEventRepository rsEventRepository;
   @Autowired VoteRepository voteRepository;
   @Autowired TradeRepository tradeRepository;
+  @Autowired VoteBudgetLedger voteBudgetLedger;
+  @Autowired JdbcTemplate jdbcTemplate;
   private UserDto userDto;
 
   @BeforeEach
@@ -139,6 +152,102 @@ class RsControllerTest {
         .andExpect(jsonPath("$[2].keyword", is("无分类")));
   }
 
+  @Test
+  public void shouldGetRsListPageByCursor() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    for (int i = 1; i <= 3; i++) {
+      rsEventRepository.save(
+          RsEventDto.builder().keyword("无分类").eventName("事件" + i).user(save).build());
+    }
+
+    String cursor =
+        mockMvc
+            .perform(get("/rs/list?size=2"))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[0].eventName", is("事件1")))
+            .andExpect(jsonPath("$[1].eventName", is("事件2")))
+            .andExpect(header().exists("Next-Cursor"))
+            .andReturn()
+            .getResponse()
+            .getHeader("Next-Cursor");
+    mockMvc
+        .perform(get("/rs/list").param("cursor", cursor).param("size", "2"))
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].eventName", is("事件3")))
+        .andExpect(header().doesNotExist("Next-Cursor"));
+  }
+
+  @Test
+  public void shouldExportRsEventListAsStream() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    for (int i = 1; i <= 3; i++) {
+      rsEventRepository.save(
+          RsEventDto.builder()
+              .keyword("无分类")
+              .eventName("事件" + i)
+              .voteNum(i)
+              .rank(i == 1 ? 1 : 0)
+              .user(save)
+              .build());
+    }
+
+    MvcResult mvcResult =
+        mockMvc.perform(get("/rs/list/export")).andExpect(request().asyncStarted()).andReturn();
+
+    mockMvc
+        .perform(asyncDispatch(mvcResult))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(3)))
+        .andExpect(jsonPath("$[0].eventName", is("事件1")))
+        .andExpect(jsonPath("$[1].eventName", is("事件3")))
+        .andExpect(jsonPath("$[2].eventName", is("事件2")));
+  }
+
+  @Test
+  public void shouldAnswerUnchangedListWithNotModified() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    RsEventDto rsEventDto =
+        rsEventRepository.save(
+            RsEventDto.builder().keyword("无分类").eventName("第一条事件").user(save).build());
+    String etag =
+        mockMvc
+            .perform(get("/rs/list"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("ETag"))
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    mockMvc
+        .perform(get("/rs/list").header("If-None-Match", etag))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+    mockMvc.perform(get("/rs/1").header("If-None-Match", etag)).andExpect(status().isNotModified());
+
+    mockMvc
+        .perform(
+            post("/rs/vote/{id}", rsEventDto.getId())
+                .content(
+                    String.format(
+                        "{\"userId\":%d,\"time\":\"%s\",\"voteNum\":1}",
+                        save.getId(), LocalDateTime.now().toString()))
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(get("/rs/list").header("If-None-Match", etag))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", not(etag)))
+        .andExpect(jsonPath("$[0].voteNum", is(1)));
+  }
+
+  @Test
+  public void shouldGetErrorWhenCursorInvalid() throws Exception {
+    mockMvc
+        .perform(get("/rs/list?cursor=not-a-cursor"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("invalid cursor")));
+  }
+
   @Test
   public void shouldAddRsEventWhenUserExist() throws Exception {
 
@@ -194,6 +303,156 @@ class RsControllerTest {
     assertEquals(voteDtos.get(0).getNum(), 1);
   }
 
+  @Test
+  public void shouldVoteFailureWhenVoteNumExceedsBudget() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    RsEventDto rsEventDto =
+        RsEventDto.builder().keyword("无分类").eventName("第一条事件").user(save).build();
+    rsEventDto = rsEventRepository.save(rsEventDto);
+
+    String jsonValue =
+        String.format(
+            "{\"userId\":%d,\"time\":\"%s\",\"voteNum\":11}",
+            save.getId(), LocalDateTime.now().toString());
+    mockMvc
+        .perform(
+            post("/rs/vote/{id}", rsEventDto.getId())
+                .content(jsonValue)
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest());
+
+    assertEquals(userRepository.findById(save.getId()).get().getVoteNum(), 10);
+    assertEquals(rsEventRepository.findById(rsEventDto.getId()).get().getVoteNum(), 0);
+    assertEquals(voteRepository.findAll().size(), 0);
+  }
+
+  @Test
+  public void shouldReportEachVoteOfBatch() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    RsEventDto rsEventDto =
+        rsEventRepository.save(
+            RsEventDto.builder().keyword("无分类").eventName("第一条事件").user(save).build());
+
+    String time = LocalDateTime.now().toString();
+    String jsonValue =
+        String.format(
+            "[{\"userId\":%1$d,\"rsEventId\":%2$d,\"time\":\"%3$s\",\"voteNum\":4},"
+                + "{\"userId\":%1$d,\"rsEventId\":%4$d,\"time\":\"%3$s\",\"voteNum\":1},"
+                + "{\"userId\":%1$d,\"rsEventId\":%2$d,\"time\":\"%3$s\",\"voteNum\":7},"
+                + "{\"userId\":%1$d,\"rsEventId\":%2$d,\"time\":\"%3$s\",\"voteNum\":6}]",
+            save.getId(), rsEventDto.getId(), time, rsEventDto.getId() + 100);
+    mockMvc
+        .perform(post("/rs/vote/batch").content(jsonValue).contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(4)))
+        .andExpect(jsonPath("$[0].success", is(true)))
+        .andExpect(jsonPath("$[1].success", is(false)))
+        .andExpect(jsonPath("$[1].error", is("invalid rs event")))
+        .andExpect(jsonPath("$[2].success", is(false)))
+        .andExpect(jsonPath("$[2].error", is("invalid user or vote num")))
+        .andExpect(jsonPath("$[3].success", is(true)));
+
+    assertEquals(userRepository.findById(save.getId()).get().getVoteNum(), 0);
+    assertEquals(rsEventRepository.findById(rsEventDto.getId()).get().getVoteNum(), 10);
+    assertEquals(voteRepository.findAll().size(), 2);
+  }
+
+  @Test
+  public void shouldGetRsEventListOrderedByVoteNumAfterVote() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    rsEventRepository.save(
+        RsEventDto.builder().keyword("无分类").eventName("第一条事件").user(save).build());
+    RsEventDto second =
+        rsEventRepository.save(
+            RsEventDto.builder().keyword("无分类").eventName("第二条事件").user(save).build());
+
+    String jsonValue =
+        String.format(
+            "{\"userId\":%d,\"time\":\"%s\",\"voteNum\":3}",
+            save.getId(), LocalDateTime.now().toString());
+    mockMvc
+        .perform(
+            post("/rs/vote/{id}", second.getId())
+                .content(jsonValue)
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+
+    mockMvc
+        .perform(get("/rs/list"))
+        .andExpect(jsonPath("$", hasSize(2)))
+        .andExpect(jsonPath("$[0].eventName", is("第二条事件")))
+        .andExpect(jsonPath("$[0].voteNum", is(3)))
+        .andExpect(jsonPath("$[1].eventName", is("第一条事件")));
+    mockMvc.perform(get("/rs/2")).andExpect(jsonPath("$.eventName", is("第一条事件")));
+  }
+
+  @Test
+  public void shouldRejectBatchVoteOverStoredBudgetDespiteStaleLedger() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    RsEventDto rsEventDto =
+        rsEventRepository.save(
+            RsEventDto.builder().keyword("无分类").eventName("第一条事件").user(save).build());
+    voteBudgetLedger.preload(Collections.singletonList(save.getId()));
+    jdbcTemplate.update("update user set vote_num = 1 where id = ?", save.getId());
+
+    String jsonValue =
+        String.format(
+            "[{\"userId\":%d,\"rsEventId\":%d,\"time\":\"%s\",\"voteNum\":4}]",
+            save.getId(), rsEventDto.getId(), LocalDateTime.now());
+    mockMvc
+        .perform(post("/rs/vote/batch").content(jsonValue).contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].success", is(false)))
+        .andExpect(jsonPath("$[0].error", is("invalid user or vote num")));
+
+    assertEquals(1, userRepository.findById(save.getId()).get().getVoteNum());
+    assertEquals(0, rsEventRepository.findById(rsEventDto.getId()).get().getVoteNum());
+    assertEquals(0, voteRepository.count());
+  }
+
+  @Test
+  public void shouldGetTopRsEventsAfterVoteAndBuy() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    RsEventDto first =
+        rsEventRepository.save(
+            RsEventDto.builder().keyword("无分类").eventName("第一条事件").user(save).build());
+    rsEventRepository.save(
+        RsEventDto.builder().keyword("无分类").eventName("第二条事件").user(save).build());
+    RsEventDto third =
+        rsEventRepository.save(
+            RsEventDto.builder().keyword("无分类").eventName("第三条事件").user(save).build());
+
+    mockMvc
+        .perform(
+            post("/rs/vote/{id}", third.getId())
+                .content(
+                    String.format(
+                        "{\"userId\":%d,\"time\":\"%s\",\"voteNum\":3}",
+                        save.getId(), LocalDateTime.now().toString()))
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+    mockMvc
+        .perform(
+            post("/rs/buy/{id}", first.getId())
+                .content("{\"amount\":10,\"rank\":1}")
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+
+    mockMvc
+        .perform(get("/rs/top").param("k", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(2)))
+        .andExpect(jsonPath("$[0].eventName", is("第一条事件")))
+        .andExpect(jsonPath("$[0].rank", is(1)))
+        .andExpect(jsonPath("$[1].eventName", is("第三条事件")))
+        .andExpect(jsonPath("$[1].voteNum", is(3)));
+    mockMvc.perform(get("/rs/top")).andExpect(jsonPath("$", hasSize(3)));
+    mockMvc
+        .perform(get("/rs/top").param("k", "0"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("invalid k")));
+  }
+
   @Test
   public void shouldRepeatBuySomeRsEventSuccess() throws Exception {
     userRepository.save(userDto);
@@ -313,4 +572,31 @@ class RsControllerTest {
             .contentType(MediaType.APPLICATION_JSON))
             .andExpect(status().isBadRequest());
   }
+
+  @Test
+  public void shouldExposeRejectedBidsAndRepositoryTimings() throws Exception {
+    mockMvc
+        .perform(
+            post("/rs/buy/{id}", 4)
+                .content("{\"amount\":10,\"rank\":1}")
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest());
+
+    ResultActions prometheus =
+        mockMvc
+            .perform(get("/actuator/prometheus"))
+            .andExpect(status().isOk())
+            .andExpect(
+                content()
+                    .string(containsString("rs_bid_rejected_total{reason=\"invalid rs event\"")))
+            .andExpect(content().string(containsString("quantile=\"0.999\"")));
+    for (String repository :
+        Arrays.asList("VoteRepository", "RsEventRepository", "UserRepository", "TradeRepository")) {
+      prometheus.andExpect(
+          content()
+              .string(
+                  containsString(
+                      "method=\"deleteAll\",repository=\"" + repository + "\"")));
+    }
+  }
 }
@@ -0,0 +1,97 @@
+package com.thoughtworks.rslist.api;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(
+    properties = {
+      "rs.list.source=database",
+      "spring.jpa.properties.hibernate.generate_statistics=true"
+    })
+@AutoConfigureMockMvc
+class RsListDatabaseSourceTest {
+  @Autowired MockMvc mockMvc;
+  @Autowired UserRepository userRepository;
+  @Autowired RsEventRepository rsEventRepository;
+  @Autowired VoteRepository voteRepository;
+  @Autowired TradeRepository tradeRepository;
+  @Autowired EntityManagerFactory entityManagerFactory;
+  Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    voteRepository.deleteAll();
+    tradeRepository.deleteAll();
+    rsEventRepository.deleteAll();
+    userRepository.deleteAll();
+    UserDto userDto =
+        userRepository.save(
+            UserDto.builder()
+                .userName("idolice")
+                .age(19)
+                .email("a@b.com")
+                .gender("female")
+                .phone("18888888888")
+                .build());
+    for (int i = 1; i <= 20; i++) {
+      rsEventRepository.save(
+          RsEventDto.builder()
+              .eventName("热搜" + i)
+              .keyword("hots")
+              .voteNum(i)
+              .rank(i == 20 ? 2 : 0)
+              .user(userDto)
+              .build());
+    }
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  public void shouldReadListWithoutLoadingEntities() throws Exception {
+    mockMvc
+        .perform(get("/rs/list"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(20)))
+        .andExpect(jsonPath("$[1].eventName", is("热搜20")));
+
+    assertEquals(2, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertEquals(0, statistics.getCollectionLoadCount());
+  }
+
+  @Test
+  public void shouldReadWindowWithoutLoadingEntities() throws Exception {
+    mockMvc
+        .perform(get("/rs/list?start=2&end=4"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(3)))
+        .andExpect(jsonPath("$[0].eventName", is("热搜20")))
+        .andExpect(jsonPath("$[1].eventName", is("热搜18")));
+    mockMvc.perform(get("/rs/1")).andExpect(jsonPath("$.eventName", is("热搜19")));
+
+    assertEquals(6, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+}
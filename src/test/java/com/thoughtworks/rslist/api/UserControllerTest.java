@@ -3,35 +3,77 @@ package com.thoughtworks.rslist.api;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.thoughtworks.rslist.domain.User;
 import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.TradeDto;
 import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteDto;
 import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import com.thoughtworks.rslist.service.RsEventCounter;
+import com.thoughtworks.rslist.service.RsEventRanking;
+import com.thoughtworks.rslist.service.UserImporter;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.MediaType;
+import org.springframework.orm.jpa.EntityManagerHolder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.util.NestedServletException;
 
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @AutoConfigureMockMvc
 class UserControllerTest {
   @Autowired MockMvc mockMvc;
   ObjectMapper objectMapper;
   @Autowired UserRepository userRepository;
   @Autowired RsEventRepository rsEventRepository;
+  @Autowired VoteRepository voteRepository;
+  @Autowired TradeRepository tradeRepository;
+  @Autowired RsEventRanking rsEventRanking;
+  @Autowired RsEventCounter rsEventCounter;
+  @Autowired EntityManagerFactory entityManagerFactory;
+  @Autowired EntityManager entityManager;
+  @Autowired PlatformTransactionManager transactionManager;
 
   @BeforeEach
   void setUp() {
     objectMapper = new ObjectMapper();
+    voteRepository.deleteAll();
+    tradeRepository.deleteAll();
     rsEventRepository.deleteAll();
     userRepository.deleteAll();
   }
@@ -124,4 +166,191 @@ class UserControllerTest {
     assertEquals(userRepository.findAll().size(), 0);
     assertEquals(rsEventRepository.findAll().size(), 0);
   }
+
+  @Test
+  public void shouldDeleteUserWithThousandsOfVotesInBulk() throws Exception {
+    UserDto heavy = userRepository.save(user("heavy"));
+    UserDto other = userRepository.save(user("other"));
+    RsEventDto heavyEvent = rsEventRepository.save(event(heavy, "heavy event"));
+    RsEventDto otherEvent = rsEventRepository.save(event(other, "other event"));
+    List<VoteDto> votes = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      votes.add(vote(heavy, i % 2 == 0 ? heavyEvent : otherEvent));
+    }
+    for (int i = 0; i < 10; i++) {
+      votes.add(vote(other, heavyEvent));
+      votes.add(vote(other, otherEvent));
+    }
+    voteRepository.saveAll(votes);
+    tradeRepository.save(TradeDto.builder().amount(10).rank(1).rsEvent(heavyEvent).build());
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    mockMvc.perform(delete("/user/{id}", heavy.getId())).andExpect(status().isOk());
+
+    assertTrue(statistics.getPrepareStatementCount() <= 10);
+    assertEquals(0, statistics.getEntityDeleteCount());
+    assertFalse(userRepository.findById(heavy.getId()).isPresent());
+    assertTrue(userRepository.findById(other.getId()).isPresent());
+    assertEquals(1, rsEventRepository.findAll().size());
+    assertEquals(otherEvent.getId(), rsEventRepository.findAll().get(0).getId());
+    assertEquals(10, voteRepository.count());
+    voteRepository.findAll().forEach(vote -> {
+      assertEquals(other.getId(), vote.getUser().getId());
+      assertEquals(otherEvent.getId(), vote.getRsEvent().getId());
+    });
+    assertEquals(0, tradeRepository.count());
+    assertFalse(rsEventRanking.contains(heavyEvent.getId()));
+    assertTrue(rsEventRanking.contains(otherEvent.getId()));
+  }
+
+  @Test
+  public void shouldInsertUsersInJdbcBatches() {
+    List<UserDto> users = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      users.add(user("user" + i));
+    }
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    List<UserDto> saved = userRepository.saveAll(users);
+
+    assertTrue(statistics.getPrepareStatementCount() <= 10);
+    assertEquals(200, saved.stream().mapToInt(UserDto::getId).distinct().count());
+    assertEquals(200, userRepository.count());
+  }
+
+  @Test
+  public void shouldImportUsersFromLinesAndReportRejectedLines() throws Exception {
+    User valid = new User("user1", "male", 20, "a@b.com", "18888888888");
+    User invalid = new User("user2", "male", 20, "a@b.com", "123");
+    String body =
+        objectMapper.writeValueAsString(valid)
+            + "\n"
+            + objectMapper.writeValueAsString(invalid)
+            + "\n\n"
+            + "{\"userName\": \"user3\", \n"
+            + objectMapper.writeValueAsString(valid)
+            + "\n";
+
+    mockMvc
+        .perform(post("/users").contentType(UserController.NDJSON).content(body))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.imported", is(2)))
+        .andExpect(jsonPath("$.errors", hasSize(2)))
+        .andExpect(jsonPath("$.errors[0].line", is(2)))
+        .andExpect(jsonPath("$.errors[0].error", containsString("phone")))
+        .andExpect(jsonPath("$.errors[1].line", is(4)));
+
+    assertEquals(2, userRepository.count());
+  }
+
+  @Test
+  public void shouldImportUsersFromArrayInChunks() throws Exception {
+    List<Object> users = new ArrayList<>();
+    for (int i = 1; i <= 2500; i++) {
+      users.add(new User("user" + i % 1000, "female", 19, "a@b.com", "18888888888"));
+    }
+    users.set(4, new User("user5", "female", 17, "a@b.com", "18888888888"));
+    users.set(6, Collections.singletonMap("age", "old"));
+
+    mockMvc
+        .perform(
+            post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(users)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.imported", is(2498)))
+        .andExpect(jsonPath("$.errors", hasSize(2)))
+        .andExpect(jsonPath("$.errors[0].line", is(5)))
+        .andExpect(jsonPath("$.errors[0].error", containsString("age")))
+        .andExpect(jsonPath("$.errors[1].line", is(7)));
+
+    assertEquals(2498, userRepository.count());
+  }
+
+  @Test
+  public void shouldKeepPersistenceContextEmptyBetweenImportChunks() throws Exception {
+    // Bind a request-scoped EntityManager the way open-session-in-view does.
+    EntityManager view = entityManagerFactory.createEntityManager();
+    TransactionSynchronizationManager.bindResource(
+        entityManagerFactory, new EntityManagerHolder(view));
+    List<Integer> managed = new ArrayList<>();
+    Validator validator = mock(Validator.class);
+    when(validator.validate(any()))
+        .thenAnswer(
+            invocation -> {
+              managed.add(view.unwrap(Session.class).getStatistics().getEntityCount());
+              return Collections.emptySet();
+            });
+    UserImporter userImporter =
+        new UserImporter(
+            userRepository, validator, objectMapper, transactionManager, entityManager, 2);
+    StringBuilder body = new StringBuilder();
+    for (int i = 0; i < 5; i++) {
+      User user = new User("user" + i, "male", 20, "a@b.com", "18888888888");
+      body.append(objectMapper.writeValueAsString(user)).append("\n");
+    }
+
+    try {
+      int imported =
+          userImporter
+              .importLines(
+                  new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)))
+              .getImported();
+
+      assertEquals(5, imported);
+      assertEquals(Collections.nCopies(5, 0), managed);
+      assertEquals(0, view.unwrap(Session.class).getStatistics().getEntityCount());
+    } finally {
+      TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+      view.close();
+    }
+    assertEquals(5, userRepository.count());
+  }
+
+  @Test
+  public void shouldFailToDeleteMissingUser() {
+    UserDto user = userRepository.save(user("user"));
+    RsEventDto rsEvent = rsEventRepository.save(event(user, "event"));
+    voteRepository.save(vote(user, rsEvent));
+    tradeRepository.save(TradeDto.builder().amount(10).rank(1).rsEvent(rsEvent).build());
+    int events = rsEventCounter.get();
+
+    NestedServletException thrown =
+        assertThrows(
+            NestedServletException.class, () -> mockMvc.perform(delete("/user/{id}", 0)));
+
+    assertTrue(thrown.getRootCause() instanceof EmptyResultDataAccessException);
+    assertEquals(1, userRepository.count());
+    assertEquals(1, rsEventRepository.count());
+    assertEquals(1, voteRepository.count());
+    assertEquals(1, tradeRepository.count());
+    assertTrue(rsEventRanking.contains(rsEvent.getId()));
+    assertEquals(events, rsEventCounter.get());
+  }
+
+  private static UserDto user(String userName) {
+    return UserDto.builder()
+        .voteNum(10)
+        .phone("18888888888")
+        .gender("female")
+        .email("a@b.com")
+        .age(19)
+        .userName(userName)
+        .build();
+  }
+
+  private static RsEventDto event(UserDto userDto, String eventName) {
+    return RsEventDto.builder().keyword("keyword").eventName(eventName).user(userDto).build();
+  }
+
+  private static VoteDto vote(UserDto userDto, RsEventDto rsEventDto) {
+    return VoteDto.builder()
+        .user(userDto)
+        .rsEvent(rsEventDto)
+        .localDateTime(LocalDateTime.now())
+        .num(1)
+        .build();
+  }
 }
@@ -1,11 +1,14 @@
 package com.thoughtworks.rslist.api;
 
+import com.jayway.jsonpath.JsonPath;
 import com.thoughtworks.rslist.dto.RsEventDto;
 import com.thoughtworks.rslist.dto.UserDto;
 import com.thoughtworks.rslist.dto.VoteDto;
 import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,15 +16,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @AutoConfigureMockMvc
 class VoteControllerTest {
   @Autowired MockMvc mockMvc;
@@ -31,6 +42,8 @@ class VoteControllerTest {
     RsEventRepository rsEventRepository;
     @Autowired
     VoteRepository voteRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
     UserDto userDto;
     RsEventDto rsEventDto;
 
@@ -107,4 +120,84 @@ class VoteControllerTest {
 
 
     }
+
+    @Test
+    public void shouldGetVoteRecordPageWithOneStatement() throws Exception {
+      for (int i = 0; i < 4; i++) {
+        voteRepository.save(VoteDto.builder().user(userDto).rsEvent(rsEventDto)
+                .localDateTime(LocalDateTime.now()).num(i).build());
+      }
+      Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+      statistics.clear();
+
+      mockMvc.perform(get("/voteRecord").param("userId",String.valueOf(userDto.getId()))
+              .param("rsEventId",String.valueOf(rsEventDto.getId())).param("pageIndex", "1"))
+              .andExpect(jsonPath("$", hasSize(5)));
+
+      assertEquals(1, statistics.getPrepareStatementCount());
+      assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void shouldPageVoteRecordWithCursor() throws Exception {
+      voteRepository.save(VoteDto.builder().user(userDto).rsEvent(rsEventDto).num(0).build());
+      LocalDateTime time = LocalDateTime.now().withNano(0);
+      for (int i = 1; i <= 6; i++) {
+        voteRepository.save(VoteDto.builder().user(userDto).rsEvent(rsEventDto)
+                .localDateTime(time.plusMinutes(i)).num(5 + i).build());
+      }
+      List<Integer> voteNums = new ArrayList<>();
+      String cursor = null;
+      int pages = 0;
+      do {
+        MockHttpServletRequestBuilder request = get("/voteRecord")
+                .param("userId", String.valueOf(userDto.getId()))
+                .param("rsEventId", String.valueOf(rsEventDto.getId()))
+                .param("size", "3");
+        if (cursor != null) {
+          request.param("cursor", cursor);
+        }
+        MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+        voteNums.addAll(JsonPath.read(result.getResponse().getContentAsString(), "$[*].voteNum"));
+        cursor = result.getResponse().getHeader(RsController.NEXT_CURSOR_HEADER);
+        pages++;
+      } while (cursor != null);
+
+      assertEquals(Arrays.asList(0, 5, 6, 7, 8, 9, 10, 11), voteNums);
+      assertEquals(3, pages);
+    }
+
+    @Test
+    public void shouldReadLaterVoteRecordPageWithOneStatement() throws Exception {
+      for (int i = 0; i < 4; i++) {
+        voteRepository.save(VoteDto.builder().user(userDto).rsEvent(rsEventDto)
+                .localDateTime(LocalDateTime.now()).num(i).build());
+      }
+      MvcResult first = mockMvc.perform(get("/voteRecord")
+              .param("userId", String.valueOf(userDto.getId()))
+              .param("rsEventId", String.valueOf(rsEventDto.getId())).param("size", "2"))
+              .andReturn();
+      Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+      statistics.clear();
+
+      mockMvc.perform(get("/voteRecord").param("userId", String.valueOf(userDto.getId()))
+              .param("rsEventId", String.valueOf(rsEventDto.getId())).param("size", "2")
+              .param("cursor", first.getResponse().getHeader(RsController.NEXT_CURSOR_HEADER)))
+              .andExpect(jsonPath("$", hasSize(2)));
+
+      assertEquals(1, statistics.getPrepareStatementCount());
+      assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void shouldRejectVoteRecordPageAboveMaxSize() throws Exception {
+      mockMvc.perform(get("/voteRecord").param("userId", String.valueOf(userDto.getId()))
+              .param("rsEventId", String.valueOf(rsEventDto.getId())).param("size", "101"))
+              .andExpect(status().isBadRequest())
+              .andExpect(jsonPath("$.error", is("invalid page size")));
+      mockMvc.perform(get("/voteRecord").param("userId", String.valueOf(userDto.getId()))
+              .param("rsEventId", String.valueOf(rsEventDto.getId())).param("cursor", "%%"))
+              .andExpect(status().isBadRequest())
+              .andExpect(jsonPath("$.error", is("invalid cursor")));
+    }
 }
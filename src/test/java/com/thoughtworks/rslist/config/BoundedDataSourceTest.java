@@ -0,0 +1,109 @@
+package com.thoughtworks.rslist.config;
+
+import com.thoughtworks.rslist.config.ReadReplicaConfiguration.ReplicaDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class BoundedDataSourceTest {
+  BoundedDataSource boundedDataSource;
+
+  @Mock DataSource dataSource;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    initMocks(this);
+    when(dataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+    boundedDataSource = new BoundedDataSource(dataSource, 2, 10);
+  }
+
+  @Test
+  void shouldTimeOutWhenAllConnectionsAreHeld() throws SQLException {
+    boundedDataSource.getConnection();
+    boundedDataSource.getConnection();
+
+    assertThrows(SQLTransientConnectionException.class, boundedDataSource::getConnection);
+    verify(dataSource, times(2)).getConnection();
+  }
+
+  @Test
+  void shouldReleasePermitOnceWhenConnectionIsClosed() throws SQLException {
+    Connection connection = boundedDataSource.getConnection();
+
+    connection.close();
+    connection.close();
+
+    assertEquals(2, boundedDataSource.availablePermits());
+  }
+
+  @Test
+  void shouldReleasePermitWhenPoolFails() throws SQLException {
+    when(dataSource.getConnection()).thenThrow(new SQLException());
+
+    assertThrows(SQLException.class, boundedDataSource::getConnection);
+
+    assertEquals(2, boundedDataSource.availablePermits());
+  }
+
+  @Test
+  void shouldCloseWrappedPool() throws Exception {
+    HikariDataSource pool = mock(HikariDataSource.class);
+
+    new BoundedDataSource(pool, 2, 10).close();
+
+    verify(pool).close();
+  }
+
+  @Test
+  void shouldBoundEachPoolButNotTheRoutingProxy() {
+    BeanPostProcessor postProcessor =
+        BoundedConnectionConfiguration.boundedDataSourcePostProcessor(2, 10);
+    HikariDataSource primary = mock(HikariDataSource.class);
+    HikariDataSource replica = mock(HikariDataSource.class);
+    Object boundedPrimary = postProcessor.postProcessAfterInitialization(primary, "primary");
+    Object boundedReplica = postProcessor.postProcessAfterInitialization(replica, "replica");
+    DataSource routing =
+        new ReplicaRoutingDataSource((DataSource) boundedPrimary, (DataSource) boundedReplica);
+    DataSource lazy = new LazyConnectionDataSourceProxy();
+
+    assertTrue(boundedPrimary instanceof BoundedDataSource);
+    assertTrue(boundedReplica instanceof BoundedDataSource);
+    assertSame(routing, postProcessor.postProcessAfterInitialization(routing, "routing"));
+    assertSame(lazy, postProcessor.postProcessAfterInitialization(lazy, "dataSource"));
+  }
+
+  @Test
+  void shouldBoundPoolsBehindReplicaDataSource() throws SQLException {
+    HikariDataSource primary = mock(HikariDataSource.class);
+    when(primary.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+    ReplicaDataSource replicaDataSource =
+        new ReplicaDataSource(primary, mock(HikariDataSource.class));
+    BeanPostProcessor postProcessor =
+        BoundedConnectionConfiguration.boundedDataSourcePostProcessor(1, 10);
+
+    assertSame(
+        replicaDataSource,
+        postProcessor.postProcessAfterInitialization(replicaDataSource, "dataSource"));
+    DataSource routing = replicaDataSource.getTargetDataSource();
+    routing.getConnection();
+    assertThrows(SQLTransientConnectionException.class, routing::getConnection);
+  }
+}
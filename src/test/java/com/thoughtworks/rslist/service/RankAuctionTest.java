@@ -0,0 +1,116 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.TradeDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class RankAuctionTest {
+  RankAuction rankAuction;
+
+  @Mock TradeWriter tradeWriter;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    rankAuction = new RankAuction(tradeWriter, 2);
+  }
+
+  @Test
+  void shouldAcceptOnlyHigherBidFromOtherEvent() {
+    rankAuction.reload(Collections.singletonList(trade(1, 1, 10)));
+
+    assertFalse(rankAuction.bid(2, 1, 10));
+    assertTrue(rankAuction.bid(2, 1, 11));
+
+    verify(tradeWriter, never()).write(2, 1, 10);
+    verify(tradeWriter).write(2, 1, 11);
+  }
+
+  @Test
+  void shouldLetHolderRaiseItsOwnBid() {
+    rankAuction.reload(Collections.singletonList(trade(1, 1, 10)));
+
+    assertTrue(rankAuction.bid(1, 1, 10));
+    assertTrue(rankAuction.bid(1, 1, 12));
+    assertFalse(rankAuction.bid(2, 1, 12));
+  }
+
+  @Test
+  void shouldRevertBidThatCannotBePersisted() {
+    rankAuction.reload(Collections.singletonList(trade(1, 1, 10)));
+    doThrow(new RuntimeException()).when(tradeWriter).write(2, 1, 20);
+
+    assertThrows(RuntimeException.class, () -> rankAuction.bid(2, 1, 20));
+
+    assertFalse(rankAuction.bid(3, 1, 10));
+    assertTrue(rankAuction.bid(3, 1, 11));
+  }
+
+  @Test
+  void shouldLetHighestOfRacingBidsWin() throws Exception {
+    int bidders = 16;
+    AtomicInteger lastWritten = new AtomicInteger();
+    doAnswer(
+            invocation -> {
+              lastWritten.set(invocation.getArgument(2));
+              return null;
+            })
+        .when(tradeWriter)
+        .write(anyInt(), anyInt(), anyInt());
+    ExecutorService executor = Executors.newFixedThreadPool(bidders);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Boolean>> results = new ArrayList<>();
+    for (int i = 1; i <= bidders; i++) {
+      int amount = i;
+      results.add(
+          executor.submit(
+              () -> {
+                start.await();
+                return rankAuction.bid(amount, 1, amount);
+              }));
+    }
+
+    start.countDown();
+    for (Future<Boolean> result : results) {
+      result.get();
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertTrue(results.get(bidders - 1).get());
+    assertEquals(bidders, lastWritten.get());
+    assertFalse(rankAuction.bid(1, 1, bidders));
+  }
+
+  private TradeDto trade(int rsEventId, int rank, int amount) {
+    return TradeDto.builder()
+        .id(rsEventId)
+        .rsEvent(RsEventDto.builder().id(rsEventId).build())
+        .rank(rank)
+        .amount(amount)
+        .build();
+  }
+}
@@ -0,0 +1,44 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class RsEventCounterTest {
+  RsEventCounter rsEventCounter;
+
+  @Mock RsEventRepository rsEventRepository;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    rsEventCounter = new RsEventCounter(rsEventRepository);
+  }
+
+  @Test
+  void shouldCountAddedAndRemovedEventsWithoutQuery() {
+    rsEventCounter.added();
+    rsEventCounter.added();
+    rsEventCounter.removed();
+
+    assertEquals(1, rsEventCounter.get());
+    verify(rsEventRepository, never()).count();
+  }
+
+  @Test
+  void shouldCorrectCountFromDatabaseOnReconcile() {
+    rsEventCounter.added();
+    when(rsEventRepository.count()).thenReturn(3L);
+
+    rsEventCounter.reconcile();
+
+    assertEquals(3, rsEventCounter.get());
+  }
+}
@@ -0,0 +1,86 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.RsEventPage;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class RsEventPagerTest {
+  RsEventPager rsEventPager;
+
+  @Mock RsEventRepository rsEventRepository;
+
+  RsEventDto first = RsEventDto.builder().id(1).eventName("热搜1").voteNum(9).build();
+  RsEventDto second = RsEventDto.builder().id(2).eventName("热搜2").voteNum(5).build();
+  RsEventDto third = RsEventDto.builder().id(3).eventName("热搜3").voteNum(1).build();
+  RsEventDto bought = RsEventDto.builder().id(4).eventName("热搜4").rank(2).build();
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    rsEventPager = new RsEventPager(rsEventRepository, new RsEventRanking(), "database", 100);
+    when(rsEventRepository.findAllByRankGreaterThanOrderByRankAscIdAsc(0))
+        .thenReturn(Collections.singletonList(bought));
+  }
+
+  @Test
+  void shouldPutBoughtEventOnItsRank() {
+    when(rsEventRepository.findAllByRankOrderByVoteNumDescIdAsc(0))
+        .thenReturn(Arrays.asList(first, second, third));
+
+    assertEquals(
+        Arrays.asList("热搜1", "热搜4", "热搜2", "热搜3"), eventNames(rsEventPager.getAll()));
+  }
+
+  @Test
+  void shouldOnlyLoadRequestedWindow() {
+    when(rsEventRepository.countByRank(0)).thenReturn(3L);
+    when(rsEventRepository.findUnrankedWindow(1, 2)).thenReturn(Arrays.asList(second, third));
+
+    assertEquals(Arrays.asList("热搜2", "热搜3"), eventNames(rsEventPager.getBetween(3, 4)));
+  }
+
+  @Test
+  void shouldContinueFromCursor() {
+    when(rsEventRepository.findUnrankedWindow(0, 2)).thenReturn(Arrays.asList(first, second));
+    RsEventPage firstPage = rsEventPager.getPage(null, 2);
+    assertEquals(Arrays.asList("热搜1", "热搜4"), eventNames(firstPage.getRsEvents()));
+
+    when(rsEventRepository.findUnrankedAfter(9, 1, PageRequest.of(0, 2)))
+        .thenReturn(Arrays.asList(second, third));
+    RsEventPage secondPage = rsEventPager.getPage(firstPage.getNextCursor(), 2);
+
+    assertEquals(Arrays.asList("热搜2", "热搜3"), eventNames(secondPage.getRsEvents()));
+    verify(rsEventRepository, never()).findUnrankedWindow(2, 2);
+  }
+
+  @Test
+  void shouldNotReturnCursorOnLastPage() {
+    when(rsEventRepository.findUnrankedWindow(0, 10)).thenReturn(Arrays.asList(first, second));
+
+    RsEventPage page = rsEventPager.getPage(null, 10);
+
+    assertEquals(Arrays.asList("热搜1", "热搜4", "热搜2"), eventNames(page.getRsEvents()));
+    assertNull(page.getNextCursor());
+  }
+
+  private List<String> eventNames(List<RsEvent> rsEvents) {
+    return rsEvents.stream().map(RsEvent::getEventName).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,109 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.RsEventSummary;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class RsEventRankingSnapshotsTest {
+  @TempDir Path directory;
+  @Mock RsEventRepository rsEventRepository;
+  @Mock VoteRepository voteRepository;
+  RsEventRanking rsEventRanking;
+  RsEventRanking restoredRanking;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    initMocks(this);
+    rsEventRanking = new RsEventRanking();
+    rsEventRanking.reload(
+        Arrays.asList(event(1, 1, 0), event(2, 5, 0), event(3, 3, 0), event(4, 0, 1)));
+    when(voteRepository.findMaxId()).thenReturn(100);
+    snapshots(rsEventRanking).write();
+    restoredRanking = new RsEventRanking();
+  }
+
+  @Test
+  void shouldRestoreSnapshotAndApplyNewerChanges() {
+    when(rsEventRepository.findAllProjectedByIdGreaterThan(4))
+        .thenReturn(Collections.singletonList(event(5, 2, 0)));
+    when(voteRepository.findRsEventIdsVotedAfter(100)).thenReturn(Collections.singletonList(1));
+    when(rsEventRepository.findAllProjectedByIdIn(Collections.singletonList(1)))
+        .thenReturn(Collections.singletonList(event(1, 9, 0)));
+    when(rsEventRepository.findAllByRankGreaterThanOrderByRankAscIdAsc(0))
+        .thenReturn(Collections.singletonList(event(4, 0, 1)));
+    when(rsEventRepository.count()).thenReturn(5L);
+
+    assertTrue(snapshots(restoredRanking).restore());
+
+    assertEquals(
+        Arrays.asList("热搜4", "热搜1", "热搜2", "热搜3", "热搜5"),
+        eventNames(restoredRanking.list()));
+    verify(rsEventRepository, never()).findAllProjectedBy();
+  }
+
+  @Test
+  void shouldNotRestoreWhenEventsWereDeleted() {
+    when(rsEventRepository.findAllByRankGreaterThanOrderByRankAscIdAsc(0))
+        .thenReturn(Collections.singletonList(event(4, 0, 1)));
+    when(rsEventRepository.count()).thenReturn(3L);
+
+    assertFalse(snapshots(restoredRanking).restore());
+
+    assertEquals(0, restoredRanking.size());
+  }
+
+  @Test
+  void shouldNotRestoreWithoutSnapshot() {
+    RsEventRankingSnapshots empty =
+        new RsEventRankingSnapshots(
+            restoredRanking,
+            rsEventRepository,
+            voteRepository,
+            true,
+            directory.resolve("empty").toString(),
+            0);
+
+    assertFalse(empty.restore());
+    verify(voteRepository, never()).findRsEventIdsVotedAfter(anyInt());
+  }
+
+  private RsEventRankingSnapshots snapshots(RsEventRanking ranking) {
+    return new RsEventRankingSnapshots(
+        ranking, rsEventRepository, voteRepository, true, directory.toString(), 0);
+  }
+
+  private static RsEventSummary event(int id, int voteNum, int rank) {
+    return RsEventDto.builder()
+        .id(id)
+        .eventName("热搜" + id)
+        .keyword("hots")
+        .voteNum(voteNum)
+        .rank(rank)
+        .build();
+  }
+
+  private static List<String> eventNames(List<RsEvent> rsEvents) {
+    return rsEvents.stream().map(RsEvent::getEventName).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,84 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RsEventRankingTest {
+  RsEventRanking rsEventRanking;
+
+  @BeforeEach
+  void setUp() {
+    rsEventRanking = new RsEventRanking();
+    rsEventRanking.reload(
+        Arrays.asList(
+            RsEventDto.builder().id(1).eventName("热搜1").keyword("hots").voteNum(1).build(),
+            RsEventDto.builder().id(2).eventName("热搜2").keyword("hots").voteNum(5).build(),
+            RsEventDto.builder().id(3).eventName("热搜3").keyword("hots").voteNum(3).build()));
+  }
+
+  @Test
+  void shouldOrderByVoteNum() {
+    assertEquals(Arrays.asList("热搜2", "热搜3", "热搜1"), eventNames(rsEventRanking.list()));
+  }
+
+  @Test
+  void shouldPutBoughtEventOnItsRank() {
+    rsEventRanking.save(
+        RsEventDto.builder().id(1).eventName("热搜1").keyword("hots").voteNum(1).rank(2).build());
+
+    assertEquals(Arrays.asList("热搜2", "热搜1", "热搜3"), eventNames(rsEventRanking.list()));
+  }
+
+  @Test
+  void shouldUpdateRankingWhenVoted() {
+    rsEventRanking.save(
+        RsEventDto.builder().id(1).eventName("热搜1").keyword("hots").voteNum(10).build());
+
+    assertEquals("热搜1", rsEventRanking.get(1).get().getEventName());
+  }
+
+  @Test
+  void shouldRemoveEvent() {
+    rsEventRanking.remove(2);
+
+    assertEquals(2, rsEventRanking.size());
+    assertFalse(rsEventRanking.get(3).isPresent());
+  }
+
+  @Test
+  void shouldBumpVersionOnlyWhenRankingChanges() {
+    long version = rsEventRanking.version();
+
+    rsEventRanking.addVotes(4, 1);
+    assertEquals(version, rsEventRanking.version());
+
+    rsEventRanking.addVotes(1, 1);
+    assertTrue(rsEventRanking.version() > version);
+  }
+
+  @Test
+  void shouldReadTopEventsWithBoughtRanks() {
+    rsEventRanking.list();
+    assertEquals(Arrays.asList("热搜2", "热搜3"), eventNames(rsEventRanking.top(2)));
+
+    rsEventRanking.save(
+        RsEventDto.builder().id(1).eventName("热搜1").keyword("hots").voteNum(1).rank(1).build());
+
+    assertEquals(Arrays.asList("热搜1", "热搜2"), eventNames(rsEventRanking.top(2)));
+    assertEquals(rsEventRanking.list(), rsEventRanking.top(10));
+  }
+
+  private List<String> eventNames(List<RsEvent> rsEvents) {
+    return rsEvents.stream().map(RsEvent::getEventName).collect(Collectors.toList());
+  }
+}
@@ -6,27 +6,38 @@ import com.thoughtworks.rslist.dto.RsEventDto;
 import com.thoughtworks.rslist.dto.TradeDto;
 import com.thoughtworks.rslist.dto.UserDto;
 import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.metrics.RsMetrics;
 import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.TradeRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteJournalRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 import org.mockito.Mock;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class RsServiceTest {
   RsService rsService;
@@ -34,8 +45,17 @@ class RsServiceTest {
   @Mock RsEventRepository rsEventRepository;
   @Mock UserRepository userRepository;
   @Mock VoteRepository voteRepository;
+  @Mock VoteJournalRepository voteJournalRepository;
   @Mock TradeRepository tradeRepository;
-  @Mock ResponseEntity responseEntity;
+  @Mock JdbcTemplate jdbcTemplate;
+  @Mock VoteWriteBehind voteWriteBehind;
+  @Mock VoteJournal voteJournal;
+  @Mock EntityManagerFactory entityManagerFactory;
+  @Mock Cache cache;
+  RsEventRanking rsEventRanking;
+  RankAuction rankAuction;
+  RsEventCounter rsEventCounter;
+  SimpleMeterRegistry meterRegistry;
   LocalDateTime localDateTime;
   Vote vote;
   Trade trade;
@@ -43,7 +63,31 @@ class RsServiceTest {
   @BeforeEach
   void setUp() {
     initMocks(this);
-    rsService = new RsService(rsEventRepository, userRepository, voteRepository,tradeRepository);
+    when(entityManagerFactory.getCache()).thenReturn(cache);
+    VoteWriter voteWriter =
+        new VoteWriter(
+            rsEventRepository,
+            userRepository,
+            voteRepository,
+            voteJournalRepository,
+            jdbcTemplate,
+            new RsEventRanking(),
+            entityManagerFactory);
+    rsEventRanking = new RsEventRanking();
+    rankAuction = new RankAuction(new TradeWriter(rsEventRepository, tradeRepository), 1);
+    rsEventCounter = new RsEventCounter(rsEventRepository);
+    meterRegistry = new SimpleMeterRegistry();
+    rsService =
+        new RsService(
+            rsEventRepository,
+            voteWriter,
+            voteWriteBehind,
+            voteJournal,
+            new VoteBudgetLedger(userRepository),
+            rsEventRanking,
+            rankAuction,
+            rsEventCounter,
+            new RsMetrics(meterRegistry));
     localDateTime = LocalDateTime.now();
     vote = Vote.builder().voteNum(2).rsEventId(1).time(localDateTime).userId(1).build();
   }
@@ -51,27 +95,9 @@ class RsServiceTest {
   @Test
   void shouldVoteSuccess() {
     // given
-    UserDto userDto =
-        UserDto.builder()
-            .voteNum(5)
-            .phone("18888888888")
-            .gender("female")
-            .email("a@b.com")
-            .age(19)
-            .userName("xiaoli")
-            .id(2)
-            .build();
-    RsEventDto rsEventDto =
-        RsEventDto.builder()
-            .eventName("event name")
-            .id(1)
-            .keyword("keyword")
-            .voteNum(2)
-            .user(userDto)
-            .build();
-
-    when(rsEventRepository.findById(anyInt())).thenReturn(Optional.of(rsEventDto));
-    when(userRepository.findById(anyInt())).thenReturn(Optional.of(userDto));
+    when(userRepository.findById(1)).thenReturn(Optional.of(UserDto.builder().id(1).build()));
+    when(userRepository.decreaseVoteNum(1, 2)).thenReturn(1);
+    when(rsEventRepository.increaseVoteNum(1, 2)).thenReturn(1);
     // when
     rsService.vote(vote, 1);
     // then
@@ -80,17 +106,15 @@ class RsServiceTest {
             VoteDto.builder()
                 .num(2)
                 .localDateTime(localDateTime)
-                .user(userDto)
-                .rsEvent(rsEventDto)
+                .user(UserDto.builder().id(1).build())
+                .rsEvent(RsEventDto.builder().id(1).build())
                 .build());
-    verify(userRepository).save(userDto);
-    verify(rsEventRepository).save(rsEventDto);
+    verify(rsEventRepository, never()).findById(anyInt());
   }
 
   @Test
   void shouldThrowExceptionWhenUserNotExist() {
     // given
-    when(rsEventRepository.findById(anyInt())).thenReturn(Optional.empty());
     when(userRepository.findById(anyInt())).thenReturn(Optional.empty());
     //when&then
     assertThrows(
@@ -98,243 +122,162 @@ class RsServiceTest {
         () -> {
           rsService.vote(vote, 1);
         });
+    verify(userRepository, never()).decreaseVoteNum(anyInt(), anyInt());
+    verify(rsEventRepository, never()).increaseVoteNum(anyInt(), anyInt());
   }
 
   @Test
-  void shouldRepeatBuySuccess() {
+  void shouldThrowExceptionWhenRsEventNotExist() {
     // given
-    trade = Trade.builder()
-            .rsEventId(10)
-            .amount(10)
-            .rank(1)
-            .build();
+    when(userRepository.findById(1)).thenReturn(Optional.of(UserDto.builder().id(1).build()));
+    when(userRepository.decreaseVoteNum(1, 2)).thenReturn(1);
+    when(rsEventRepository.increaseVoteNum(anyInt(), anyInt())).thenReturn(0);
+    //when&then
+    assertThrows(
+        RuntimeException.class,
+        () -> {
+          rsService.vote(vote, 1);
+        });
+    verify(voteRepository, never()).save(any());
+  }
 
+  @Test
+  void shouldRepeatBuySuccess() {
+    // given
+    trade = Trade.builder().rsEventId(10).amount(10).rank(1).build();
     RsEventDto rsEventDto =
-            RsEventDto.builder()
-                    .eventName("热搜10")
-                    .id(10)
-                    .keyword("hots")
-                    .voteNum(10)
-                    .rank(1)
-                    .build();
-
-    TradeDto oldtradeDto = TradeDto.builder()
-            .rsEvent(rsEventDto)
-            .rank(1)
-            .amount(8)
-            .build();
-
-
-    when(rsEventRepository.findById(anyInt())).thenReturn(Optional.of(rsEventDto));
-    when(tradeRepository.findByRank(anyInt())).thenReturn(Optional.of(oldtradeDto));
-    when(rsEventRepository.count()).thenReturn((long) 5);
-
+        RsEventDto.builder().eventName("热搜10").id(10).keyword("hots").voteNum(10).rank(1).build();
+    TradeDto oldTradeDto = TradeDto.builder().id(1).rsEvent(rsEventDto).rank(1).amount(8).build();
+    given(rsEventDto);
+    rankAuction.reload(Collections.singletonList(oldTradeDto));
+    when(rsEventRepository.findById(10)).thenReturn(Optional.of(rsEventDto));
+    when(tradeRepository.findByRank(1)).thenReturn(Optional.of(oldTradeDto));
     // when
-    rsService.buy(trade,1);
-
+    ResponseEntity response = rsService.buy(trade, 10);
     // then
-    verify(tradeRepository)
-            .findByRank(1);
-
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(10, oldTradeDto.getAmount());
+    verify(tradeRepository).save(oldTradeDto);
+    verify(tradeRepository, never()).delete(any());
     verify(rsEventRepository).save(rsEventDto);
-    verify(responseEntity).equals(status().isOk());
   }
 
   @Test
   void shouldFirstBuySuccess() {
     // given
-    trade = Trade.builder()
-            .rsEventId(2)
-            .amount(10)
-            .rank(1)
-            .build();
-
+    trade = Trade.builder().rsEventId(2).amount(10).rank(1).build();
     RsEventDto rsEventDto =
-            RsEventDto.builder()
-                    .eventName("热搜2")
-                    .id(2)
-                    .keyword("hots")
-                    .voteNum(10)
-                    .build();
-
-    when(rsEventRepository.findById(anyInt())).thenReturn(Optional.of(rsEventDto));
-    when(tradeRepository.findByRank(anyInt())).thenReturn(Optional.empty());
-    when(rsEventRepository.count()).thenReturn((long) 5);
-
+        RsEventDto.builder().eventName("热搜2").id(2).keyword("hots").voteNum(10).build();
+    given(rsEventDto);
+    when(rsEventRepository.findById(2)).thenReturn(Optional.of(rsEventDto));
+    when(tradeRepository.findByRank(1)).thenReturn(Optional.empty());
     // when
-    rsService.buy(trade,2);
-
+    ResponseEntity response = rsService.buy(trade, 2);
     // then
-    verify(tradeRepository).save(TradeDto.builder()
-                            .amount(10).rank(1).rsEvent(rsEventDto).build());
-
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    verify(tradeRepository)
+        .save(TradeDto.builder().amount(10).rank(1).rsEvent(rsEventDto).build());
     verify(rsEventRepository).save(rsEventDto);
-
-    verify(responseEntity).equals(status().isOk());
+    assertEquals(1, rsEventDto.getRank());
   }
 
   @Test
   void shouldBuySuccess() {
     // given
-    trade = Trade.builder()
-            .rsEventId(2)
-            .amount(10)
-            .rank(1)
-            .build();
-
-    RsEventDto oldrsEventDto =
-            RsEventDto.builder()
-                    .eventName("热搜1")
-                    .id(1)
-                    .keyword("hots")
-                    .voteNum(10)
-                    .rank(1)
-                    .build();
-    rsEventRepository.save(oldrsEventDto);
-
+    trade = Trade.builder().rsEventId(2).amount(10).rank(1).build();
+    RsEventDto oldRsEventDto =
+        RsEventDto.builder().eventName("热搜1").id(1).keyword("hots").voteNum(10).rank(1).build();
     RsEventDto rsEventDto =
-            RsEventDto.builder()
-                    .eventName("热搜2")
-                    .id(2)
-                    .keyword("hots")
-                    .voteNum(10)
-                    .build();
-
-    TradeDto oldtradeDto = TradeDto.builder()
-            .rsEvent(oldrsEventDto)
-            .rank(1)
-            .amount(8)
-            .build();
-
-    when(rsEventRepository.findById(anyInt())).thenReturn(Optional.of(rsEventDto));
-    when(tradeRepository.findByRank(anyInt())).thenReturn(Optional.of(oldtradeDto));
-    when(rsEventRepository.count()).thenReturn((long) 5);
-
+        RsEventDto.builder().eventName("热搜2").id(2).keyword("hots").voteNum(10).build();
+    TradeDto oldTradeDto =
+        TradeDto.builder().id(1).rsEvent(oldRsEventDto).rank(1).amount(8).build();
+    given(oldRsEventDto, rsEventDto);
+    rankAuction.reload(Collections.singletonList(oldTradeDto));
+    when(rsEventRepository.findById(2)).thenReturn(Optional.of(rsEventDto));
+    when(tradeRepository.findByRank(1)).thenReturn(Optional.of(oldTradeDto));
     // when
-    rsService.buy(trade,2);
-
+    ResponseEntity response = rsService.buy(trade, 2);
     // then
-    verify(tradeRepository).save(TradeDto.builder()
-            .amount(10).rank(1).rsEvent(rsEventDto).build());
-
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    verify(tradeRepository).delete(oldTradeDto);
+    verify(rsEventRepository).deleteAllByRank(1);
+    verify(tradeRepository)
+        .save(TradeDto.builder().amount(10).rank(1).rsEvent(rsEventDto).build());
     verify(rsEventRepository).save(rsEventDto);
-    verify(responseEntity).equals(status().isOk());
   }
 
   @Test
   void shouldBuyFailureWhenRsEventIsNull() {
     // given
-    trade = Trade.builder()
-            .rsEventId(1)
-            .amount(10)
-            .rank(1)
-            .build();
-
-    TradeDto oldtradeDto = TradeDto.builder()
-            .rank(1)
-            .amount(8)
-            .build();
-
-
-    when(rsEventRepository.findById(anyInt())).thenReturn(Optional.empty());
-    when(tradeRepository.findByRank(anyInt())).thenReturn(Optional.of(oldtradeDto));
-    when(rsEventRepository.count()).thenReturn((long) 5);
-
+    trade = Trade.builder().rsEventId(1).amount(10).rank(1).build();
+    given();
     // when
-    rsService.buy(trade, 1);
+    ResponseEntity response = rsService.buy(trade, 1);
     // then
-    verify(responseEntity).equals(status().isBadRequest());
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    verify(tradeRepository, never()).save(any());
   }
 
   @Test
   void shouldBuyFailureWhenAccountIsSmall() {
     // given
-    // given
-    trade = Trade.builder()
-            .rsEventId(2)
-            .amount(10)
-            .rank(1)
-            .build();
-
-    RsEventDto oldrsEventDto =
-            RsEventDto.builder()
-                    .eventName("热搜1")
-                    .id(1)
-                    .keyword("hots")
-                    .voteNum(10)
-                    .rank(1)
-                    .build();
-    rsEventRepository.save(oldrsEventDto);
-
+    trade = Trade.builder().rsEventId(2).amount(10).rank(1).build();
+    RsEventDto oldRsEventDto =
+        RsEventDto.builder().eventName("热搜1").id(1).keyword("hots").voteNum(10).rank(1).build();
     RsEventDto rsEventDto =
-            RsEventDto.builder()
-                    .eventName("热搜2")
-                    .id(2)
-                    .keyword("hots")
-                    .voteNum(10)
-                    .build();
-
-    TradeDto oldtradeDto = TradeDto.builder()
-            .rsEvent(oldrsEventDto)
-            .rank(1)
-            .amount(100)
-            .build();
-
-    when(rsEventRepository.findById(anyInt())).thenReturn(Optional.of(rsEventDto));
-    when(tradeRepository.findByRank(anyInt())).thenReturn(Optional.of(oldtradeDto));
-    when(rsEventRepository.count()).thenReturn((long) 5);
-
+        RsEventDto.builder().eventName("热搜2").id(2).keyword("hots").voteNum(10).build();
+    given(oldRsEventDto, rsEventDto);
+    rankAuction.reload(
+        Collections.singletonList(
+            TradeDto.builder().id(1).rsEvent(oldRsEventDto).rank(1).amount(100).build()));
     // when
-    rsService.buy(trade, 2);
+    ResponseEntity response = rsService.buy(trade, 2);
+    // then
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    verify(tradeRepository, never()).findByRank(anyInt());
+    verify(tradeRepository, never()).save(any());
+    assertEquals(
+        1, meterRegistry.counter("rs.bid.rejected", "reason", "amount too low").count());
+  }
 
+  @Test
+  void shouldBuyFailureWhenAmountEqualsOtherEventBid() {
+    // given
+    trade = Trade.builder().rsEventId(2).amount(100).rank(1).build();
+    RsEventDto oldRsEventDto =
+        RsEventDto.builder().eventName("热搜1").id(1).keyword("hots").voteNum(10).rank(1).build();
+    RsEventDto rsEventDto =
+        RsEventDto.builder().eventName("热搜2").id(2).keyword("hots").voteNum(10).build();
+    given(oldRsEventDto, rsEventDto);
+    rankAuction.reload(
+        Collections.singletonList(
+            TradeDto.builder().id(1).rsEvent(oldRsEventDto).rank(1).amount(100).build()));
+    // when
+    ResponseEntity response = rsService.buy(trade, 2);
     // then
-    verify(responseEntity).equals(status().isBadRequest());
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    verify(tradeRepository, never()).save(any());
   }
 
   @Test
   void shouldBuyFailureWhenRankIsLarger() {
     // given
-    // given
-    trade = Trade.builder()
-            .rsEventId(2)
-            .amount(10)
-            .rank(100)
-            .build();
-
-    RsEventDto oldrsEventDto =
-            RsEventDto.builder()
-                    .eventName("热搜1")
-                    .id(1)
-                    .keyword("hots")
-                    .voteNum(10)
-                    .rank(1)
-                    .build();
-    rsEventRepository.save(oldrsEventDto);
-
+    trade = Trade.builder().rsEventId(2).amount(10).rank(100).build();
+    RsEventDto oldRsEventDto =
+        RsEventDto.builder().eventName("热搜1").id(1).keyword("hots").voteNum(10).rank(1).build();
     RsEventDto rsEventDto =
-            RsEventDto.builder()
-                    .eventName("热搜2")
-                    .id(2)
-                    .keyword("hots")
-                    .voteNum(10)
-                    .build();
-
-    TradeDto oldtradeDto = TradeDto.builder()
-            .rsEvent(oldrsEventDto)
-            .rank(1)
-            .amount(8)
-            .build();
-
-    when(rsEventRepository.findById(anyInt())).thenReturn(Optional.of(rsEventDto));
-    when(tradeRepository.findByRank(anyInt())).thenReturn(Optional.of(oldtradeDto));
-    when(rsEventRepository.count()).thenReturn((long) 5);
-
+        RsEventDto.builder().eventName("热搜2").id(2).keyword("hots").voteNum(10).build();
+    given(oldRsEventDto, rsEventDto);
     // when
-    rsService.buy(trade, 2);
-
+    ResponseEntity response = rsService.buy(trade, 2);
     // then
-    verify(responseEntity).equals(status().isBadRequest());
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    verify(tradeRepository, never()).save(any());
   }
 
-
+  private void given(RsEventDto... rsEventDtos) {
+    rsEventRanking.reload(Arrays.asList(rsEventDtos));
+    when(rsEventRepository.count()).thenReturn((long) 5);
+    rsEventCounter.reconcile();
+  }
 }
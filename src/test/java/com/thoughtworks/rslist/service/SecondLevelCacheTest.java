@@ -0,0 +1,101 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.TradeDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("l2cache")
+class SecondLevelCacheTest {
+  @Autowired RsService rsService;
+  @Autowired UserRepository userRepository;
+  @Autowired RsEventRepository rsEventRepository;
+  @Autowired VoteRepository voteRepository;
+  @Autowired TradeRepository tradeRepository;
+  @Autowired EntityManagerFactory entityManagerFactory;
+  Statistics statistics;
+  UserDto userDto;
+  RsEventDto rsEventDto;
+
+  @BeforeEach
+  void setUp() {
+    voteRepository.deleteAll();
+    tradeRepository.deleteAll();
+    rsEventRepository.deleteAll();
+    userRepository.deleteAll();
+    userDto =
+        userRepository.save(
+            UserDto.builder()
+                .userName("idolice")
+                .age(19)
+                .email("a@b.com")
+                .gender("female")
+                .phone("18888888888")
+                .voteNum(10)
+                .build());
+    rsEventDto =
+        rsEventRepository.save(
+            RsEventDto.builder().eventName("热搜1").keyword("hots").user(userDto).build());
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void shouldServeRepeatedReadsFromCache() {
+    rsEventRepository.findById(rsEventDto.getId());
+    rsEventRepository.findById(rsEventDto.getId());
+    userRepository.findById(userDto.getId());
+
+    assertEquals(0, statistics.getPrepareStatementCount());
+    assertTrue(statistics.getSecondLevelCacheHitCount() >= 3);
+  }
+
+  @Test
+  void shouldCacheTradeOfRank() {
+    tradeRepository.save(TradeDto.builder().amount(8).rank(1).rsEvent(rsEventDto).build());
+    tradeRepository.findByRank(1);
+    statistics.clear();
+
+    tradeRepository.findByRank(1);
+
+    assertEquals(1, statistics.getQueryCacheHitCount());
+    assertEquals(0, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void shouldNotServeStaleVoteNumAfterBatchVote() {
+    rsEventRepository.findById(rsEventDto.getId());
+    userRepository.findById(userDto.getId());
+
+    rsService.voteBatch(
+        Collections.singletonList(
+            Vote.builder()
+                .userId(userDto.getId())
+                .rsEventId(rsEventDto.getId())
+                .voteNum(3)
+                .time(LocalDateTime.now())
+                .build()));
+
+    assertEquals(3, rsEventRepository.findById(rsEventDto.getId()).get().getVoteNum());
+    assertEquals(7, userRepository.findById(userDto.getId()).get().getVoteNum());
+  }
+}
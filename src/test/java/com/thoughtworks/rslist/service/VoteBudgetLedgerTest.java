@@ -0,0 +1,100 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class VoteBudgetLedgerTest {
+  VoteBudgetLedger voteBudgetLedger;
+
+  @Mock UserRepository userRepository;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    voteBudgetLedger = new VoteBudgetLedger(userRepository);
+    when(userRepository.findById(1))
+        .thenReturn(Optional.of(UserDto.builder().id(1).voteNum(10).build()));
+  }
+
+  @Test
+  void shouldRejectReservationOverBudget() {
+    assertTrue(voteBudgetLedger.reserve(1, 6));
+    assertFalse(voteBudgetLedger.reserve(1, 5));
+    assertTrue(voteBudgetLedger.reserve(1, 4));
+    verify(userRepository, times(1)).findById(anyInt());
+  }
+
+  @Test
+  void shouldRejectUnknownUser() {
+    when(userRepository.findById(2)).thenReturn(Optional.empty());
+
+    assertFalse(voteBudgetLedger.reserve(2, 1));
+  }
+
+  @Test
+  void shouldReturnBudgetWhenRefunded() {
+    assertTrue(voteBudgetLedger.reserve(1, 10));
+    voteBudgetLedger.refund(1, 10);
+
+    assertTrue(voteBudgetLedger.reserve(1, 10));
+  }
+
+  @Test
+  void shouldNeverOverspendUnderConcurrentReservations() throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicInteger reserved = new AtomicInteger();
+    for (int i = 0; i < 100; i++) {
+      executor.execute(
+          () -> {
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            if (voteBudgetLedger.reserve(1, 1)) {
+              reserved.incrementAndGet();
+            }
+          });
+    }
+    start.countDown();
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+
+    assertEquals(10, reserved.get());
+  }
+
+  @Test
+  void shouldReloadBudgetWhenNothingIsInFlight() {
+    assertTrue(voteBudgetLedger.reserve(1, 10));
+    voteBudgetLedger.commit(1, 10);
+    when(userRepository.findAllById(anyIterable()))
+        .thenReturn(Collections.singletonList(UserDto.builder().id(1).voteNum(3).build()));
+
+    voteBudgetLedger.reconcile();
+
+    assertTrue(voteBudgetLedger.reserve(1, 3));
+    assertFalse(voteBudgetLedger.reserve(1, 1));
+  }
+}
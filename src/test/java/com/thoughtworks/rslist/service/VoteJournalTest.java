@@ -0,0 +1,156 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class VoteJournalTest {
+  @TempDir Path directory;
+  @Mock VoteWriter voteWriter;
+  @Mock VoteBudgetLedger voteBudgetLedger;
+  RsEventRanking rsEventRanking;
+  LocalDateTime localDateTime = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    rsEventRanking = new RsEventRanking();
+    rsEventRanking.reload(Collections.singletonList(RsEventDto.builder().id(1).build()));
+  }
+
+  @Test
+  void shouldApplyJournaledVotesInOneBatch() throws Exception {
+    VoteJournal voteJournal = journal(voteWriter, 16);
+    voteJournal.append(vote(2), 1);
+    voteJournal.append(vote(3), 1);
+
+    voteJournal.apply();
+
+    verify(voteWriter).write(Arrays.asList(journaled(2), journaled(3)), 2L);
+    verify(voteBudgetLedger).commit(2, 2);
+    verify(voteBudgetLedger).commit(2, 3);
+  }
+
+  @Test
+  void shouldReplayVotesAfterStoredPositionOnRestart() throws Exception {
+    VoteJournal voteJournal = journal(voteWriter, 16);
+    voteJournal.append(vote(1), 1);
+    voteJournal.apply();
+    verify(voteWriter).write(Collections.singletonList(journaled(1)), 1L);
+    voteJournal.append(vote(2), 1);
+    voteJournal.append(vote(3), 1);
+
+    VoteWriter restartedWriter = mock(VoteWriter.class);
+    when(restartedWriter.journalPosition()).thenReturn(1L);
+    VoteJournal restarted = journal(restartedWriter, 16);
+
+    verify(restartedWriter).write(Arrays.asList(journaled(2), journaled(3)), 3L);
+    restarted.append(vote(4), 1);
+    restarted.apply();
+    verify(restartedWriter).write(Collections.singletonList(journaled(4)), 4L);
+    verify(voteBudgetLedger, never()).commit(2, 2);
+    verify(voteBudgetLedger).commit(2, 4);
+  }
+
+  @Test
+  void shouldSkipVotesTheDatabaseAlreadyAppliedOnReplay() throws Exception {
+    VoteJournal voteJournal = journal(voteWriter, 16);
+    voteJournal.append(vote(1), 1);
+    voteJournal.append(vote(2), 1);
+    voteJournal.append(vote(3), 1);
+
+    VoteWriter restartedWriter = mock(VoteWriter.class);
+    when(restartedWriter.journalPosition()).thenReturn(2L);
+    journal(restartedWriter, 16);
+
+    verify(restartedWriter).write(Collections.singletonList(journaled(3)), 3L);
+    verify(restartedWriter).write(anyList(), anyLong());
+  }
+
+  @Test
+  void shouldRecordDroppedVoteAsApplied() throws Exception {
+    when(voteWriter.write(anyList(), anyLong())).thenThrow(new IllegalStateException());
+    VoteJournal voteJournal = journal(voteWriter, 16);
+    voteJournal.append(vote(2), 1);
+
+    voteJournal.apply();
+
+    verify(voteWriter).advanceJournal(1L);
+    verify(voteBudgetLedger).refund(2, 2);
+  }
+
+  @Test
+  void shouldRollSegmentsAndDeleteAppliedOnes() throws Exception {
+    VoteJournal voteJournal = journal(voteWriter, 2);
+    for (int i = 1; i <= 5; i++) {
+      voteJournal.append(vote(i), 1);
+    }
+
+    voteJournal.apply();
+
+    verify(voteWriter)
+        .write(
+            Arrays.asList(journaled(1), journaled(2), journaled(3), journaled(4), journaled(5)),
+            5L);
+    try (Stream<Path> files = Files.list(directory)) {
+      assertEquals(1, files.filter(file -> file.toString().endsWith(".journal")).count());
+    }
+  }
+
+  @Test
+  void shouldRejectVoteForUnknownRsEvent() throws Exception {
+    VoteJournal voteJournal = journal(voteWriter, 16);
+
+    assertThrows(RequestNotValidException.class, () -> voteJournal.append(vote(1), 2));
+    voteJournal.apply();
+
+    verify(voteWriter, never()).write(anyList(), anyLong());
+    verify(voteBudgetLedger, never()).commit(anyInt(), anyInt());
+  }
+
+  private VoteJournal journal(VoteWriter writer, int segmentRecords) throws Exception {
+    VoteJournal voteJournal =
+        new VoteJournal(
+            writer,
+            voteBudgetLedger,
+            rsEventRanking,
+            true,
+            directory.toString(),
+            segmentRecords,
+            60000,
+            500);
+    voteJournal.start();
+    return voteJournal;
+  }
+
+  private Vote vote(int voteNum) {
+    return Vote.builder().userId(2).time(localDateTime).voteNum(voteNum).build();
+  }
+
+  private Vote journaled(int voteNum) {
+    return Vote.builder().userId(2).rsEventId(1).time(localDateTime).voteNum(voteNum).build();
+  }
+}
@@ -0,0 +1,88 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class VoteWriteBehindTest {
+  VoteWriteBehind voteWriteBehind;
+
+  @Mock VoteWriter voteWriter;
+  @Mock VoteBudgetLedger voteBudgetLedger;
+  LocalDateTime localDateTime = LocalDateTime.now();
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    RsEventRanking rsEventRanking = new RsEventRanking();
+    rsEventRanking.reload(Collections.singletonList(RsEventDto.builder().id(1).build()));
+    voteWriteBehind =
+        new VoteWriteBehind(voteWriter, voteBudgetLedger, rsEventRanking, true, 60000, 500, true);
+  }
+
+  @Test
+  void shouldWriteBufferedVotesInOneBatch() {
+    voteWriteBehind.accept(vote(2), 1);
+    voteWriteBehind.accept(vote(3), 1);
+
+    voteWriteBehind.flush();
+
+    verify(voteWriter).write(Arrays.asList(buffered(2), buffered(3)));
+    verify(voteBudgetLedger).commit(2, 2);
+    verify(voteBudgetLedger).commit(2, 3);
+  }
+
+  @Test
+  void shouldRefundVotesRejectedByStoredBudget() {
+    when(voteWriter.write(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    voteWriteBehind.accept(vote(2), 1);
+
+    voteWriteBehind.flush();
+
+    verify(voteBudgetLedger).refund(2, 2);
+    verify(voteBudgetLedger, never()).commit(2, 2);
+  }
+
+  @Test
+  void shouldRefundVoteThatCannotBeWritten() {
+    doThrow(new RuntimeException()).when(voteWriter).write(anyList());
+    voteWriteBehind.accept(vote(2), 1);
+
+    voteWriteBehind.flush();
+
+    verify(voteBudgetLedger).refund(2, 2);
+    verify(voteBudgetLedger, never()).commit(2, 2);
+  }
+
+  @Test
+  void shouldRejectVoteForUnknownRsEvent() {
+    assertThrows(RequestNotValidException.class, () -> voteWriteBehind.accept(vote(1), 2));
+    voteWriteBehind.flush();
+
+    verify(voteWriter, never()).write(any());
+  }
+
+  private Vote vote(int voteNum) {
+    return Vote.builder().userId(2).time(localDateTime).voteNum(voteNum).build();
+  }
+
+  private Vote buffered(int voteNum) {
+    return Vote.builder().userId(2).rsEventId(1).time(localDateTime).voteNum(voteNum).build();
+  }
+}